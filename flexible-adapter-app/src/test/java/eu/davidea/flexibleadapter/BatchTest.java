@@ -0,0 +1,101 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.samples.flexibleadapter.items.SimpleItem;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class BatchTest {
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createHeadersSectionsDatabase(30, 5);
+        mAdapter = new FlexibleAdapter<>(DatabaseService.getInstance().getDatabaseList());
+        mAdapter.setPositionIndexEnabled(true);
+    }
+
+    @Test
+    public void testBatchOperations() {
+        AbstractFlexibleItem first = mAdapter.getItem(0);
+        SimpleItem updated = DatabaseService.newSimpleItem(6, null);
+        SimpleItem inserted = DatabaseService.newSimpleItem(31, null);
+
+        mAdapter.beginBatch()
+                .remove(DatabaseService.newSimpleItem(3, null))
+                .update(updated)
+                .insert(0, inserted)
+                .move(first, 10)
+                .commit();
+
+        assertEquals(30, mAdapter.getItemCount());
+        assertSame(inserted, mAdapter.getItem(0));
+        assertSame(first, mAdapter.getItem(10));
+        assertSame(updated, mAdapter.getItem(mAdapter.getGlobalPositionOf(updated)));
+        assertEquals(-1, mAdapter.getGlobalPositionOf(DatabaseService.newSimpleItem(3, null)));
+        assertTrue(mAdapter.verifyPositionIndex());
+    }
+
+    @Test
+    public void testBatchShowsHeaders() {
+        mAdapter.showAllHeaders();
+        int count = mAdapter.getItemCount();
+        IHeader header = DatabaseService.newHeader(9);
+
+        mAdapter.beginBatch()
+                .insert(-1, DatabaseService.newSimpleItem(31, header))
+                .insert(-1, DatabaseService.newSimpleItem(32, header))
+                .commit();
+
+        assertEquals(count + 3, mAdapter.getItemCount());
+        assertEquals(count, mAdapter.getGlobalPositionOf(header));
+    }
+
+    @Test
+    public void testBatchKeepsSelection() {
+        mAdapter.setMode(SelectableAdapter.Mode.MULTI);
+        AbstractFlexibleItem removed = mAdapter.getItem(5);
+        AbstractFlexibleItem moved = mAdapter.getItem(8);
+        AbstractFlexibleItem kept = mAdapter.getItem(12);
+        mAdapter.addSelection(5);
+        mAdapter.addSelection(8);
+        mAdapter.addSelection(12);
+
+        mAdapter.beginBatch()
+                .insert(0, DatabaseService.newSimpleItem(31, null))
+                .remove(removed)
+                .move(moved, 20)
+                .insert(2, DatabaseService.newSimpleItem(32, null))
+                .commit();
+
+        List<AbstractFlexibleItem> selectedItems = new ArrayList<>();
+        for (Integer position : mAdapter.getSelectedPositions()) {
+            selectedItems.add(mAdapter.getItem(position));
+        }
+        assertEquals(2, selectedItems.size());
+        assertTrue(selectedItems.contains(moved));
+        assertTrue(selectedItems.contains(kept));
+        assertEquals(21, mAdapter.getGlobalPositionOf(moved));
+    }
+
+}
@@ -0,0 +1,108 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares {@link ChunkedList} with {@link ArrayList} on the operations the Adapter performs
+ * on its internal list: middle insertions (addItem, expand), removal at the same position
+ * (removeRange), range removal and sequential read (bind, scan).
+ * <p>Manual benchmark, the behaviour is covered by {@link ChunkedListTest}.</p>
+ *
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@Ignore("Manual benchmark")
+public class ChunkedListBenchmarkTest {
+
+    private static final int OPERATIONS = 2000;
+    private static final int RANGE = 1000;
+    /* Read by the benchmark, so the loops are not optimized away */
+    private static long sSink;
+
+    @Test
+    public void testBenchmark10K() {
+        benchmark(10_000);
+    }
+
+    @Test
+    public void testBenchmark100K() {
+        benchmark(100_000);
+    }
+
+    @Test
+    public void testBenchmark1M() {
+        benchmark(1_000_000);
+    }
+
+    private void benchmark(int size) {
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(i);
+        }
+        List<Integer> arrayList = new ArrayList<>(items);
+        List<Integer> chunkedList = new ChunkedList<>(items);
+        System.out.println("Benchmark size=" + size + " [ArrayList vs ChunkedList]");
+        print("insert", insert(arrayList), insert(chunkedList));
+        print("remove", remove(arrayList), remove(chunkedList));
+        print("removeRange loop", removeAtSamePosition(arrayList), removeAtSamePosition(chunkedList));
+        print("subList.clear", clearRange(arrayList), clearRange(chunkedList));
+        print("sequential get", read(arrayList), read(chunkedList));
+        assertEquals(arrayList, chunkedList);
+    }
+
+    private static void print(String operation, long arrayListTime, long chunkedListTime) {
+        System.out.println(String.format("  %-18s %8dus %8dus", operation, arrayListTime / 1000, chunkedListTime / 1000));
+    }
+
+    private static long insert(List<Integer> list) {
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            list.add(random.nextInt(list.size()), -i);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long remove(List<Integer> list) {
+        Random random = new Random(2);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            list.remove(random.nextInt(list.size()));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long removeAtSamePosition(List<Integer> list) {
+        int position = list.size() / 3;
+        long start = System.nanoTime();
+        for (int i = 0; i < RANGE; i++) {
+            list.remove(position);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long clearRange(List<Integer> list) {
+        int position = list.size() / 2;
+        long start = System.nanoTime();
+        list.subList(position, position + RANGE).clear();
+        return System.nanoTime() - start;
+    }
+
+    private static long read(List<Integer> list) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        sSink += sum;
+        return System.nanoTime() - start;
+    }
+
+}
@@ -0,0 +1,144 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+public class ChunkedListTest {
+
+    private static final int CHUNK = ChunkedList.CHUNK_SIZE;
+
+    private static List<Integer> sequence(int from, int to) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    public void testInsertAcrossChunkBoundaries() {
+        List<Integer> expected = sequence(0, CHUNK * 3);
+        List<Integer> chunked = new ChunkedList<>(expected);
+        assertEquals(expected, chunked);
+        // Around the first and the last boundaries, at the start and at the end
+        for (int position : new int[]{CHUNK - 1, CHUNK, CHUNK + 1, CHUNK * 2, 0, expected.size()}) {
+            expected.add(position, -position);
+            chunked.add(position, -position);
+            assertEquals(expected, chunked);
+        }
+        // Enough insertions in the same chunk to split it
+        for (int i = 0; i < CHUNK * 2; i++) {
+            expected.add(CHUNK + 10, -i);
+            chunked.add(CHUNK + 10, -i);
+        }
+        assertEquals(expected, chunked);
+        List<Integer> block = sequence(10_000, 10_000 + CHUNK + 7);
+        expected.addAll(CHUNK * 2 - 3, block);
+        chunked.addAll(CHUNK * 2 - 3, block);
+        assertEquals(expected, chunked);
+    }
+
+    @Test
+    public void testRemoveAcrossChunkBoundaries() {
+        List<Integer> expected = sequence(0, CHUNK * 4);
+        List<Integer> chunked = new ChunkedList<>(expected);
+        // Removals at the same position empty the chunks one after the other
+        for (int i = 0; i < CHUNK + 5; i++) {
+            assertEquals(expected.remove(CHUNK - 2), chunked.remove(CHUNK - 2));
+        }
+        assertEquals(expected, chunked);
+        // Ranges covering an entire chunk and parts of the neighbours
+        expected.subList(10, CHUNK * 2).clear();
+        chunked.subList(10, CHUNK * 2).clear();
+        assertEquals(expected, chunked);
+        expected.subList(0, 3).clear();
+        chunked.subList(0, 3).clear();
+        assertEquals(expected, chunked);
+        assertEquals(expected.remove(expected.size() - 1), chunked.remove(chunked.size() - 1));
+        assertEquals(expected, chunked);
+        chunked.clear();
+        assertEquals(0, chunked.size());
+        chunked.add(0, 1);
+        assertEquals(Arrays.asList(1), chunked);
+    }
+
+    @Test
+    public void testGetSetAndIndexOf() {
+        List<Integer> expected = sequence(0, CHUNK * 3 + 1);
+        List<Integer> chunked = new ChunkedList<>(expected);
+        for (int position : new int[]{0, CHUNK - 1, CHUNK, CHUNK * 3}) {
+            assertEquals(expected.get(position), chunked.get(position));
+            assertEquals(expected.set(position, -1), chunked.set(position, -1));
+        }
+        assertEquals(expected, chunked);
+        assertEquals(expected.indexOf(-1), chunked.indexOf(-1));
+        assertEquals(expected.lastIndexOf(-1), chunked.lastIndexOf(-1));
+        assertEquals(expected.indexOf(CHUNK * 2), chunked.indexOf(CHUNK * 2));
+        assertEquals(-1, chunked.indexOf(CHUNK * 5));
+        // Random access after sequential access, backward
+        for (int i = chunked.size() - 1; i >= 0; i -= 97) {
+            assertEquals(expected.get(i), chunked.get(i));
+        }
+    }
+
+    @Test
+    public void testIterators() {
+        List<Integer> expected = sequence(0, CHUNK * 2 + 3);
+        List<Integer> chunked = new ChunkedList<>(expected);
+        Iterator<Integer> iterator = chunked.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 3 == 0) iterator.remove();
+        }
+        for (Iterator<Integer> it = expected.iterator(); it.hasNext(); ) {
+            if (it.next() % 3 == 0) it.remove();
+        }
+        assertEquals(expected, chunked);
+        ListIterator<Integer> listIterator = chunked.listIterator(CHUNK);
+        ListIterator<Integer> expectedIterator = expected.listIterator(CHUNK);
+        while (listIterator.hasPrevious()) {
+            assertEquals(expectedIterator.previous(), listIterator.previous());
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(11);
+        List<Integer> expected = new ArrayList<>();
+        List<Integer> chunked = new ChunkedList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int size = expected.size();
+            int operation = random.nextInt(10);
+            if (size == 0 || operation < 5) {
+                int position = random.nextInt(size + 1);
+                expected.add(position, i);
+                chunked.add(position, i);
+            } else if (operation < 8) {
+                int position = random.nextInt(size);
+                assertEquals(expected.remove(position), chunked.remove(position));
+            } else if (operation < 9) {
+                int position = random.nextInt(size);
+                assertEquals(expected.get(position), chunked.get(position));
+            } else {
+                int from = random.nextInt(size);
+                int to = Math.min(size, from + random.nextInt(CHUNK * 2));
+                expected.subList(from, to).clear();
+                chunked.subList(from, to).clear();
+            }
+            assertEquals(expected.size(), chunked.size());
+        }
+        assertEquals(expected, chunked);
+    }
+
+}
@@ -0,0 +1,122 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class ExpandableIndexTest {
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+    private List<AbstractFlexibleItem> mItems;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createExpandableMultiLevelDatabase(10);
+        mItems = DatabaseService.getInstance().getDatabaseList();
+        mAdapter = new FlexibleAdapter<>(mItems);
+        mAdapter.setExpandableIndexEnabled(true);
+    }
+
+    /**
+     * Same logic of getExpandableOf() without index.
+     */
+    private IExpandable scanExpandableOf(AbstractFlexibleItem child) {
+        for (AbstractFlexibleItem parent : mAdapter.getCurrentItems()) {
+            if (parent instanceof IExpandable && ((IExpandable) parent).isExpanded()) {
+                List<IFlexible> subItems = ((IExpandable) parent).getSubItems();
+                for (IFlexible subItem : subItems) {
+                    if (!subItem.isHidden() && subItem.equals(child)) {
+                        return (IExpandable) parent;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void assertParents() {
+        for (AbstractFlexibleItem item : mAdapter.getCurrentItems()) {
+            assertEquals(scanExpandableOf(item), mAdapter.getExpandableOf(item));
+        }
+    }
+
+    @Test
+    public void testExpandAndCollapseMultiLevel() {
+        assertParents();
+        mAdapter.expand(0);
+        assertNotNull(mAdapter.getExpandableOf(1));
+        assertParents();
+        // Expand a sub expandable of level 1
+        mAdapter.expand(1);
+        assertEquals(mAdapter.getItem(1), mAdapter.getExpandableOf(2));
+        assertParents();
+        mAdapter.expandAll();
+        assertParents();
+        // Collapse the root, sub levels remain expanded but not displayed
+        mAdapter.collapse(0);
+        assertParents();
+        mAdapter.collapseAll();
+        assertParents();
+    }
+
+    @Test
+    public void testRemoveAndRestoreSubItems() {
+        mAdapter.setPermanentDelete(false);
+        mAdapter.expand(0);
+        mAdapter.expand(1);
+        AbstractFlexibleItem child = mAdapter.getItem(2);
+        IExpandable parent = mAdapter.getExpandableOf(child);
+        assertNotNull(parent);
+        mAdapter.removeItem(2);
+        assertNull(mAdapter.getExpandableOf(child));
+        assertParents();
+        mAdapter.restoreDeletedItems();
+        assertEquals(parent, mAdapter.getExpandableOf(child));
+        assertParents();
+        // Permanently remove an expanded parent
+        mAdapter.setPermanentDelete(true);
+        mAdapter.removeItem(mAdapter.getGlobalPositionOf((AbstractFlexibleItem) parent));
+        assertParents();
+    }
+
+    @Test
+    public void testRemoveAllSubItems() {
+        mAdapter.expand(0);
+        IExpandable parent = (IExpandable) mAdapter.getItem(0);
+        int count = parent.getSubItems().size();
+        for (int i = 0; i < count; i++) {
+            AbstractFlexibleItem child = mAdapter.getItem(1);
+            assertEquals(parent, mAdapter.getExpandableOf(child));
+            mAdapter.removeItem(1);
+            assertNull(mAdapter.getExpandableOf(child));
+            assertParents();
+        }
+    }
+
+    @Test
+    public void testUpdateDataSet() {
+        mAdapter.expandAll();
+        mAdapter.updateDataSet(mItems);
+        assertParents();
+    }
+
+}
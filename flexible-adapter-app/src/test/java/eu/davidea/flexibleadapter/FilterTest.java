@@ -1,6 +1,10 @@
 package eu.davidea.flexibleadapter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -8,11 +12,14 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.ISearchable;
 import eu.davidea.samples.flexibleadapter.items.SimpleItem;
 import eu.davidea.samples.flexibleadapter.services.DatabaseService;
 
@@ -24,9 +31,58 @@ import eu.davidea.samples.flexibleadapter.services.DatabaseService;
 @Config(sdk = 25)
 public class FilterTest {
 
+    /* Computes the background tasks in the calling thread */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
     private List<AbstractFlexibleItem> mItems;
 
+    private static class SearchableItem extends SimpleItem implements ISearchable {
+        SearchableItem(int id) {
+            super("I" + id, null);
+        }
+
+        @Override
+        public String getSearchableText() {
+            return "Item " + getId();
+        }
+    }
+
+    private static class CountingItem extends SimpleItem {
+        static int filterCalls;
+
+        CountingItem(int id) {
+            super("I" + id, null);
+            setTitle("Simple Item " + id);
+        }
+
+        @Override
+        public boolean filter(String constraint) {
+            filterCalls++;
+            return super.filter(constraint);
+        }
+    }
+
+    private static List<AbstractFlexibleItem> createSearchableItems(int from, int to) {
+        List<AbstractFlexibleItem> items = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            items.add(new SearchableItem(i));
+        }
+        return items;
+    }
+
+    private static List<AbstractFlexibleItem> filter(FlexibleAdapter<AbstractFlexibleItem> adapter, String filter) {
+        adapter.setFilter(filter);
+        adapter.filterItems();
+        shadowOf(Looper.getMainLooper()).idle();
+        return new ArrayList<>(adapter.getCurrentItems());
+    }
+
     @Before
     public void setUp() throws Exception {
         DatabaseService.getInstance().createHeadersSectionsDatabase(30, 5);
@@ -57,6 +113,134 @@ public class FilterTest {
         signal.await(100L, TimeUnit.MILLISECONDS);
     }
 
+    @Test
+    public void testSearchIndexFollowsReplacedList() {
+        mAdapter = new FlexibleAdapter<>(createSearchableItems(0, 50));
+        mAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        mAdapter.setSearchIndexEnabled(true);
+        assertEquals(50, filter(mAdapter, "item").size());
+        assertEquals(50, mAdapter.getSearchIndexCount());
+        filter(mAdapter, "");
+
+        // The items of the replaced list are discarded
+        mAdapter.updateDataSet(createSearchableItems(50, 80));
+        assertEquals(0, mAdapter.getSearchIndexCount());
+        assertEquals(30, filter(mAdapter, "item").size());
+        assertEquals(30, mAdapter.getSearchIndexCount());
+        filter(mAdapter, "");
+        mAdapter.adoptDataSet(createSearchableItems(80, 90), false);
+        assertEquals(0, mAdapter.getSearchIndexCount());
+    }
+
+    @Test
+    public void testParallelFilterSameOrderAsSerial() {
+        DatabaseService.getInstance().createHeadersSectionsDatabase(3000, 30);
+        List<AbstractFlexibleItem> items = DatabaseService.getInstance().getDatabaseList();
+        FlexibleAdapter<AbstractFlexibleItem> serialAdapter = new FlexibleAdapter<>(items);
+        serialAdapter.showAllHeaders();
+        serialAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        FlexibleAdapter<AbstractFlexibleItem> parallelAdapter = new FlexibleAdapter<>(items);
+        parallelAdapter.showAllHeaders();
+        parallelAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        parallelAdapter.setParallelFilterEnabled(true);
+
+        for (String filter : new String[]{"1", "12", "99", "x", ""}) {
+            List<AbstractFlexibleItem> expected = filter(serialAdapter, filter);
+            assertEquals("Filter '" + filter + "'", expected, filter(parallelAdapter, filter));
+        }
+    }
+
+    @Test
+    public void testFilterCacheHitAndInvalidation() {
+        List<AbstractFlexibleItem> items = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            items.add(new CountingItem(i));
+        }
+        mAdapter = new FlexibleAdapter<>(items);
+        mAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        mAdapter.setFilterCacheSize(4);
+        List<AbstractFlexibleItem> expected = filter(mAdapter, "1");
+        filter(mAdapter, "2");
+        assertEquals(2, mAdapter.getFilterCacheCount());
+
+        // Same results without calling the filter
+        CountingItem.filterCalls = 0;
+        assertEquals(expected, filter(mAdapter, "1"));
+        assertEquals(0, CountingItem.filterCalls);
+        filter(mAdapter, "");
+
+        // A new data set discards the cache
+        CountingItem newItem = new CountingItem(100);
+        items.add(newItem);
+        mAdapter.updateDataSet(items);
+        List<AbstractFlexibleItem> filtered = filter(mAdapter, "1");
+        assertTrue(CountingItem.filterCalls > 0);
+        assertTrue(filtered.contains(newItem));
+        assertEquals(expected.size() + 1, filtered.size());
+        assertEquals(1, mAdapter.getFilterCacheCount());
+    }
+
+    @Test
+    public void testProgressiveFilterSameItemsAsFilter() {
+        DatabaseService.getInstance().createHeadersSectionsDatabase(3000, 30);
+        List<AbstractFlexibleItem> items = DatabaseService.getInstance().getDatabaseList();
+        FlexibleAdapter<AbstractFlexibleItem> adapter = new FlexibleAdapter<>(items);
+        adapter.showAllHeaders();
+        adapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        FlexibleAdapter<AbstractFlexibleItem> progressiveAdapter = new FlexibleAdapter<>(items);
+        progressiveAdapter.showAllHeaders();
+        progressiveAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        progressiveAdapter.setProgressiveFilterPageSize(20);
+        progressiveAdapter.setFilterCacheSize(4);
+
+        for (String filter : new String[]{"1", "2", "1", "12", "x", ""}) {
+            List<AbstractFlexibleItem> expected = filter(adapter, filter);
+            assertEquals("Filter '" + filter + "'", expected, filter(progressiveAdapter, filter));
+        }
+        // Appended results don't change the data set
+        assertEquals(4, progressiveAdapter.getFilterCacheCount());
+    }
+
+    private static FlexibleAdapter<AbstractFlexibleItem> createCountingAdapter(int size) {
+        List<AbstractFlexibleItem> items = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            items.add(new CountingItem(i));
+        }
+        FlexibleAdapter<AbstractFlexibleItem> adapter = new FlexibleAdapter<>(items);
+        adapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        return adapter;
+    }
+
+    @Test
+    public void testFilterRefinement() {
+        FlexibleAdapter<AbstractFlexibleItem> adapter = createCountingAdapter(300);
+        FlexibleAdapter<AbstractFlexibleItem> refiningAdapter = createCountingAdapter(300);
+        refiningAdapter.setFilterRefinementEnabled(true);
+        List<AbstractFlexibleItem> expected = filter(adapter, "1");
+        assertEquals(expected, filter(refiningAdapter, "1"));
+
+        // Narrowing filter: only the previous results are filtered
+        int candidates = refiningAdapter.getItemCount();
+        expected = filter(adapter, "12");
+        CountingItem.filterCalls = 0;
+        assertEquals(expected, filter(refiningAdapter, "12"));
+        assertEquals(candidates, CountingItem.filterCalls);
+
+        // Broadening filter: full scan
+        expected = filter(adapter, "2");
+        CountingItem.filterCalls = 0;
+        assertEquals(expected, filter(refiningAdapter, "2"));
+        assertEquals(300, CountingItem.filterCalls);
+
+        // Items added and removed while filtered
+        adapter.addItem(0, new CountingItem(1020));
+        adapter.removeItem(adapter.getGlobalPositionOf(new CountingItem(20)));
+        refiningAdapter.addItem(0, new CountingItem(1020));
+        refiningAdapter.removeItem(refiningAdapter.getGlobalPositionOf(new CountingItem(20)));
+        assertEquals(filter(adapter, "20"), filter(refiningAdapter, "20"));
+        assertEquals(filter(adapter, "202"), filter(refiningAdapter, "202"));
+    }
+
     private void verifyResult() {
         int count = 0;
         for (AbstractFlexibleItem dbItem : mItems) {
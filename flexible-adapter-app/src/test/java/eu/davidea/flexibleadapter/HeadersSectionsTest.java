@@ -10,6 +10,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
@@ -134,6 +135,53 @@ public class HeadersSectionsTest {
         }
     }
 
+    @Test
+    public void testSectionIndex() throws Exception {
+        mAdapter = new FlexibleAdapter<>(mItems);
+        mAdapter.setSectionIndexEnabled(true);
+        mAdapter.setDisplayHeadersAtStartUp(true);
+        assertSectionsAsScan();
+        // Remove a header and some items
+        mAdapter.removeItem(mAdapter.getGlobalPositionOf(mAdapter.getHeaderItems().get(2)));
+        mAdapter.removeRange(3, 4);
+        assertSectionsAsScan();
+        // Move items across sections
+        mAdapter.moveItem(1, 20);
+        mAdapter.onItemMove(mAdapter.getItemCount() - 1, 2);
+        assertSectionsAsScan();
+        // Add a new section
+        IHeader newHeader = DatabaseService.newHeader(HEADER_SIZE + 1);
+        mAdapter.addItem(0, DatabaseService.newSimpleItem(ITEM_SIZE + 1, newHeader));
+        assertEquals(0, mAdapter.getGlobalPositionOf(newHeader));
+        assertEquals(newHeader, mAdapter.getSectionHeader(1));
+        assertSectionsAsScan();
+    }
+
+    private void assertSectionsAsScan() {
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            IHeader expected = null;
+            for (int i = position; i >= 0; i--) {
+                if (mAdapter.isHeader(mAdapter.getItem(i))) {
+                    expected = (IHeader) mAdapter.getItem(i);
+                    break;
+                }
+            }
+            assertEquals(expected, mAdapter.getSectionHeader(position));
+            if (expected != null) {
+                assertEquals(mAdapter.getCurrentItems().indexOf(expected), mAdapter.getGlobalPositionOf(expected));
+            }
+        }
+        for (IHeader header : mAdapter.getHeaderItems()) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = mAdapter.getCurrentItems().indexOf(header) + 1;
+                 i < mAdapter.getItemCount() && mAdapter.hasSameHeader(mAdapter.getItem(i), header); i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, mAdapter.getSectionItemPositions(header));
+            assertEquals(expected.size(), mAdapter.getSectionItems(header).size());
+        }
+    }
+
     @Test
     public void testSameTypePositionOf() throws Exception {
         mAdapter = new FlexibleAdapter<>(mItems);
@@ -0,0 +1,100 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+public class MoveDetectorTest {
+
+    /**
+     * Applies the moves as the RecyclerView does and checks the final order.
+     */
+    private static int applyMoves(int[] targets) {
+        List<Integer> list = new ArrayList<>();
+        for (int target : targets) {
+            list.add(target);
+        }
+        int[] moves = MoveDetector.detectMoves(targets);
+        for (int i = 0; i < moves.length; i += 2) {
+            list.add(moves[i + 1], list.remove(moves[i]));
+        }
+        for (int i = 0; i < targets.length; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+        return moves.length / 2;
+    }
+
+    /**
+     * Quadratic length of the longest increasing subsequence.
+     */
+    private static int lisLength(int[] values) {
+        int[] lengths = new int[values.length];
+        int max = 0;
+        for (int i = 0; i < values.length; i++) {
+            lengths[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] < values[i]) lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+            }
+            max = Math.max(max, lengths[i]);
+        }
+        return max;
+    }
+
+    @Test
+    public void testSimpleMoves() {
+        assertEquals(0, applyMoves(new int[]{0, 1, 2, 3}));
+        // Last to first and first to last are single moves
+        assertEquals(1, applyMoves(new int[]{1, 2, 3, 0}));
+        assertEquals(1, applyMoves(new int[]{3, 0, 1, 2}));
+        assertEquals(3, applyMoves(new int[]{3, 2, 1, 0}));
+        assertEquals(0, applyMoves(new int[0]));
+    }
+
+    @Test
+    public void testMinimalMoves() {
+        Random random = new Random(5);
+        for (int round = 0; round < 500; round++) {
+            int size = random.nextInt(60);
+            List<Integer> permutation = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                permutation.add(i);
+            }
+            Collections.shuffle(permutation, random);
+            int[] targets = new int[size];
+            for (int i = 0; i < size; i++) {
+                targets[i] = permutation.get(i);
+            }
+            assertEquals(size - lisLength(targets), applyMoves(targets));
+        }
+    }
+
+    @Test
+    public void testLargeNearlySortedList() {
+        int size = 50_000;
+        int[] targets = new int[size];
+        for (int i = 0; i < size; i++) {
+            targets[i] = i;
+        }
+        // Swap some rows of a sorted table
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            int a = random.nextInt(size), b = random.nextInt(size);
+            int temp = targets[a];
+            targets[a] = targets[b];
+            targets[b] = temp;
+        }
+        int[] moves = MoveDetector.detectMoves(targets);
+        assertTrue(moves.length / 2 <= 200);
+    }
+
+}
@@ -0,0 +1,125 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class PositionIndexTest {
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+    private List<AbstractFlexibleItem> mItems;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createExpandableSectionsDatabase(30);
+        mItems = DatabaseService.getInstance().getDatabaseList();
+        mAdapter = new FlexibleAdapter<>(mItems);
+        mAdapter.setPositionIndexEnabled(true);
+    }
+
+    private void assertPositions() {
+        assertTrue(mAdapter.verifyPositionIndex());
+        List<AbstractFlexibleItem> currentItems = mAdapter.getCurrentItems();
+        for (int i = 0; i < currentItems.size(); i++) {
+            assertEquals(currentItems.indexOf(currentItems.get(i)), mAdapter.getGlobalPositionOf(currentItems.get(i)));
+        }
+    }
+
+    @Test
+    public void testGlobalPositionOf() {
+        assertPositions();
+        assertEquals(-1, mAdapter.getGlobalPositionOf(DatabaseService.newSimpleItem(100, null)));
+    }
+
+    @Test
+    public void testAddAndRemoveItems() {
+        assertPositions();
+        List<AbstractFlexibleItem> newItems = new ArrayList<>();
+        for (int i = 101; i <= 105; i++) {
+            newItems.add(DatabaseService.newSimpleItem(i, null));
+        }
+        mAdapter.addItems(3, newItems);
+        assertPositions();
+        AbstractFlexibleItem removed = mAdapter.getItem(10);
+        mAdapter.removeRange(8, 4);
+        assertEquals(-1, mAdapter.getGlobalPositionOf(removed));
+        assertPositions();
+        mAdapter.addItem(0, DatabaseService.newSimpleItem(106, null));
+        mAdapter.removeItem(mAdapter.getItemCount() - 1);
+        assertPositions();
+    }
+
+    @Test
+    public void testMoveAndSwapItems() {
+        assertPositions();
+        mAdapter.moveItem(2, 12);
+        assertPositions();
+        mAdapter.moveItem(20, 1);
+        assertPositions();
+        mAdapter.onItemMove(5, 9);
+        assertPositions();
+        mAdapter.onItemMove(15, 4);
+        assertPositions();
+    }
+
+    @Test
+    public void testExpandAndCollapse() {
+        assertPositions();
+        mAdapter.expand(0);
+        mAdapter.expand(mAdapter.getItemCount() - 1);
+        assertPositions();
+        mAdapter.expandAll();
+        assertPositions();
+        mAdapter.collapse(mAdapter.getGlobalPositionOf(mItems.get(5)));
+        assertPositions();
+        mAdapter.collapseAll();
+        assertEquals(mItems.size(), mAdapter.getItemCount());
+        assertPositions();
+    }
+
+    @Test
+    public void testUpdateItemsAndDataSet() {
+        assertPositions();
+        AbstractFlexibleItem oldItem = mAdapter.getItem(4);
+        AbstractFlexibleItem newItem = DatabaseService.newSimpleItem(200, null);
+        mAdapter.updateItem(4, newItem, null);
+        assertEquals(4, mAdapter.getGlobalPositionOf(newItem));
+        assertEquals(-1, mAdapter.getGlobalPositionOf(oldItem));
+        assertPositions();
+        mAdapter.updateDataSet(mItems.subList(0, 10));
+        assertEquals(10, mAdapter.getItemCount());
+        assertPositions();
+    }
+
+    @Test
+    public void testManyChanges() {
+        // Enough changes to fill the log of pending shifts and trigger a rebuild
+        for (int i = 0; i < 50; i++) {
+            mAdapter.addItem(i % 7, DatabaseService.newSimpleItem(1000 + i, null));
+            assertEquals(i % 7, mAdapter.getGlobalPositionOf(mAdapter.getItem(i % 7)));
+        }
+        assertPositions();
+        for (int i = 0; i < 40; i++) {
+            mAdapter.removeItem(i % 5);
+        }
+        assertPositions();
+    }
+
+}
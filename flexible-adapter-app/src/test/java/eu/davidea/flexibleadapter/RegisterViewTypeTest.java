@@ -0,0 +1,103 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.viewholders.FlexibleViewHolder;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class RegisterViewTypeTest {
+
+    private static final int REGISTERED_LAYOUT = android.R.layout.simple_list_item_2;
+    private static final int MAPPED_LAYOUT = android.R.layout.simple_list_item_1;
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+    private FrameLayout mParent;
+    private int mFactoryCalls, mItemCalls;
+
+    private class TestItem extends AbstractFlexibleItem<FlexibleViewHolder> {
+        final int layoutRes;
+
+        TestItem(int layoutRes) {
+            this.layoutRes = layoutRes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int getLayoutRes() {
+            return layoutRes;
+        }
+
+        @Override
+        public FlexibleViewHolder createViewHolder(View view, FlexibleAdapter<IFlexible> adapter) {
+            mItemCalls++;
+            return new FlexibleViewHolder(view, adapter);
+        }
+
+        @Override
+        public void bindViewHolder(FlexibleAdapter<IFlexible> adapter, FlexibleViewHolder holder, int position, List<Object> payloads) {
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        List<AbstractFlexibleItem> items = new ArrayList<>();
+        items.add(new TestItem(REGISTERED_LAYOUT));
+        items.add(new TestItem(MAPPED_LAYOUT));
+        mAdapter = new FlexibleAdapter<>(items);
+        mAdapter.registerViewType(REGISTERED_LAYOUT, REGISTERED_LAYOUT, new FlexibleAdapter.ViewHolderFactory() {
+            @Override
+            public RecyclerView.ViewHolder createViewHolder(View view, FlexibleAdapter<IFlexible> adapter) {
+                mFactoryCalls++;
+                return new FlexibleViewHolder(view, adapter);
+            }
+        });
+        mParent = new FrameLayout(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testRegisteredViewType() {
+        assertTrue(mAdapter.isViewTypeRegistered(REGISTERED_LAYOUT));
+        int viewType = mAdapter.getItemViewType(0);
+        assertEquals(REGISTERED_LAYOUT, viewType);
+        mAdapter.onCreateViewHolder(mParent, viewType);
+        assertEquals(1, mFactoryCalls);
+        assertEquals(0, mItemCalls);
+    }
+
+    @Test
+    public void testNotRegisteredViewTypeFallsBackToItem() {
+        int viewType = mAdapter.getItemViewType(1);
+        assertEquals(MAPPED_LAYOUT, viewType);
+        mAdapter.onCreateViewHolder(mParent, viewType);
+        assertEquals(0, mFactoryCalls);
+        assertEquals(1, mItemCalls);
+    }
+
+}
@@ -0,0 +1,102 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.items.ISearchable;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+public class SearchIndexTest {
+
+    private static class Text implements ISearchable {
+        final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String getSearchableText() {
+            return text;
+        }
+    }
+
+    /**
+     * Same logic of the filter without index.
+     */
+    private static int scanCount(List<Text> items, String query) {
+        int count = 0;
+        for (Text item : items) {
+            if (item.text.toLowerCase().contains(query)) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testSearchMatchesScan() {
+        Random random = new Random(3);
+        List<Text> items = new ArrayList<>();
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < 10; k++) {
+                text.append((char) ('a' + random.nextInt(5)));
+            }
+            Text item = new Text(i % 2 == 0 ? text.toString().toUpperCase() : text.toString());
+            items.add(item);
+            index.add(item);
+        }
+        // Removals with compaction
+        for (int i = 0; i < 1500; i++) {
+            index.remove(items.remove(random.nextInt(items.size())));
+        }
+        assertEquals(items.size(), index.size());
+        for (String query : new String[]{"a", "ab", "abc", "cab", "abcd", "eeee", "abcdeabcde"}) {
+            Set<Object> matches = index.search(query);
+            assertEquals(scanCount(items, query), matches.size());
+            for (Object match : matches) {
+                assertTrue(((Text) match).text.toLowerCase().contains(query));
+            }
+        }
+    }
+
+    @Test
+    public void testRetainReplacedItems() {
+        SearchIndex index = new SearchIndex();
+        List<Text> oldItems = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            oldItems.add(new Text("old item " + i));
+            index.add(oldItems.get(i));
+        }
+        // New list: some instances are kept, the others are replaced
+        Set<Object> newItems = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        newItems.addAll(oldItems.subList(0, 100));
+        for (int i = 0; i < 100; i++) {
+            Text item = new Text("new item " + i);
+            newItems.add(item);
+            index.add(item);
+        }
+        index.retainAll(newItems);
+        assertEquals(200, index.size());
+        assertEquals(100, index.search("old").size());
+        assertEquals(200, index.search("it").size());
+        assertTrue(index.search("old item 499").isEmpty());
+
+        index.retainAll(Collections.emptySet());
+        assertEquals(0, index.size());
+        assertTrue(index.search("it").isEmpty());
+    }
+
+}
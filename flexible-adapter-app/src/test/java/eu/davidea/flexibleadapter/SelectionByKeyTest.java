@@ -0,0 +1,97 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class SelectionByKeyTest {
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+    private List<AbstractFlexibleItem> mItems;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createEndlessDatabase(30);
+        mItems = DatabaseService.getInstance().getDatabaseList();
+        mAdapter = new FlexibleAdapter<>(mItems);
+        // SimpleItem is not IKeyable
+        mAdapter.setIdProvider(new FlexibleAdapter.InterningIdProvider());
+    }
+
+    @Test
+    public void testConversion() {
+        mAdapter.addSelection(2);
+        mAdapter.addSelection(5);
+        mAdapter.setSelectionByKeyEnabled(true);
+        assertEquals(Arrays.asList(2, 5), mAdapter.getSelectedPositions());
+        mAdapter.setSelectionByKeyEnabled(false);
+        assertEquals(Arrays.asList(2, 5), mAdapter.getSelectedPositions());
+    }
+
+    @Test
+    public void testSelectionFollowsItems() {
+        mAdapter.setSelectionByKeyEnabled(true);
+        AbstractFlexibleItem item2 = mAdapter.getItem(2);
+        AbstractFlexibleItem item5 = mAdapter.getItem(5);
+        mAdapter.addSelection(2);
+        mAdapter.addSelection(5);
+        assertEquals(2, mAdapter.getSelectedItemCount());
+
+        mAdapter.addItem(0, DatabaseService.newSimpleItem(100, null));
+        assertEquals(Arrays.asList(3, 6), mAdapter.getSelectedPositions());
+
+        mAdapter.moveItem(6, 0);
+        assertTrue(mAdapter.isSelected(0));
+        assertEquals(item5, mAdapter.getItem(0));
+        assertEquals(2, mAdapter.getSelectedItemCount());
+
+        mAdapter.removeItem(0);
+        assertEquals(1, mAdapter.getSelectedItemCount());
+        assertTrue(mAdapter.isSelected(mAdapter.getGlobalPositionOf(item2)));
+
+        // Selection survives a new data set with the same items in a different order
+        List<AbstractFlexibleItem> newItems = new ArrayList<>(mAdapter.getCurrentItems());
+        newItems.remove(item2);
+        newItems.add(0, item2);
+        mAdapter.updateDataSet(newItems);
+        assertTrue(mAdapter.isSelected(0));
+        assertFalse(mAdapter.isSelected(1));
+        assertEquals(1, mAdapter.getSelectedItemCount());
+
+        mAdapter.clearSelection();
+        assertEquals(0, mAdapter.getSelectedItemCount());
+        assertFalse(mAdapter.isSelected(0));
+    }
+
+    @Test
+    public void testItemsWithoutKeyNotSelectable() {
+        mAdapter = new FlexibleAdapter<>(mItems);
+        mAdapter.addSelection(2);
+        mAdapter.setSelectionByKeyEnabled(true);
+        // The hashCode is not used as key
+        assertEquals(0, mAdapter.getSelectedItemCount());
+        mAdapter.addSelection(5);
+        assertFalse(mAdapter.isSelected(5));
+        assertEquals(0, mAdapter.getSelectedItemCount());
+    }
+
+}
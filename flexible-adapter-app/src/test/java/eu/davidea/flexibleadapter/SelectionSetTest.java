@@ -0,0 +1,95 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+public class SelectionSetTest {
+
+    @Test
+    public void testSelectAllAndDeselect() {
+        SelectionSet selection = new SelectionSet();
+        selection.selectAll(100);
+        assertEquals(100, selection.size());
+        assertTrue(selection.isSelected(99));
+        assertFalse(selection.isSelected(100));
+        assertTrue(selection.deselect(10));
+        assertFalse(selection.isSelected(10));
+        assertEquals(11, selection.nextSelected(10));
+        // Selecting outside the range leaves the inverted mode
+        assertTrue(selection.select(200));
+        assertEquals(100, selection.size());
+        assertFalse(selection.isSelected(10));
+        assertTrue(selection.isSelected(99));
+        selection.clear();
+        assertEquals(0, selection.size());
+        assertEquals(-1, selection.nextSelected(0));
+    }
+
+    @Test
+    public void testShift() {
+        SelectionSet selection = new SelectionSet();
+        selection.select(2);
+        selection.select(63);
+        selection.select(64);
+        selection.select(130);
+        // Insertion of 1 item at position 3
+        assertTrue(selection.shift(3, 1));
+        assertEquals(Arrays.asList(2, 64, 65, 131), new ArrayList<>(selection));
+        // Removal of 62 items from position 3: positions before start collapse into start
+        assertTrue(selection.shift(3, -62));
+        assertEquals(Arrays.asList(2, 3, 69), new ArrayList<>(selection));
+        assertFalse(selection.shift(70, 5));
+        // Headers removed in inverted mode
+        selection.selectAll(10);
+        assertTrue(selection.shift(0, -3));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), new ArrayList<>(selection));
+    }
+
+    @Test
+    public void testSameBehaviourOfTreeSet() {
+        Random random = new Random(1);
+        SelectionSet selection = new SelectionSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            int position = random.nextInt(300);
+            switch (random.nextInt(10)) {
+                case 0:
+                    selection.selectAll(250);
+                    expected.clear();
+                    for (int p = 0; p < 250; p++) expected.add(p);
+                    break;
+                case 1:
+                    Iterator<Integer> iterator = selection.iterator();
+                    while (iterator.hasNext()) {
+                        int p = iterator.next();
+                        if (random.nextBoolean()) {
+                            iterator.remove();
+                            expected.remove(p);
+                        }
+                    }
+                    break;
+                case 2: case 3: case 4: case 5:
+                    assertEquals(expected.add(position), selection.select(position));
+                    break;
+                default:
+                    assertEquals(expected.remove(position), selection.deselect(position));
+            }
+            assertEquals(expected.size(), selection.size());
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(selection));
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class StableIdsTest {
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+    private FlexibleAdapter.InterningIdProvider mInterning;
+    private int mProviderCalls;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createEndlessDatabase(30);
+        mAdapter = new FlexibleAdapter<>(DatabaseService.getInstance().getDatabaseList(), null, true);
+        mInterning = new FlexibleAdapter.InterningIdProvider() {
+            @Override
+            public synchronized long getStableId(Object item) {
+                mProviderCalls++;
+                return super.getStableId(item);
+            }
+        };
+        mAdapter.setIdProvider(mInterning);
+    }
+
+    @Test
+    public void testIdsAreUniqueAndCached() {
+        Set<Long> ids = new HashSet<>();
+        for (int pass = 0; pass < 3; pass++) {
+            for (int position = 0; position < mAdapter.getItemCount(); position++) {
+                ids.add(mAdapter.getItemId(position));
+            }
+        }
+        assertEquals(30, ids.size());
+        assertEquals(30, mProviderCalls);
+    }
+
+    @Test
+    public void testSameIdForUpdatedCopy() {
+        long id = mAdapter.getItemId(5);
+        List<AbstractFlexibleItem> newItems = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            newItems.add(DatabaseService.newSimpleItem(i, null));
+        }
+        mAdapter.updateDataSet(newItems);
+        assertEquals(id, mAdapter.getItemId(5));
+        // The previous instance has been released
+        assertEquals(30, mInterning.size());
+        mAdapter.updateDataSet(new ArrayList<>(newItems.subList(0, 10)));
+        assertEquals(id, mAdapter.getItemId(5));
+        assertEquals(10, mInterning.size());
+    }
+
+    @Test
+    public void testIdsKeptWhenListReplaced() {
+        List<Long> ids = new ArrayList<>();
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            ids.add(mAdapter.getItemId(position));
+        }
+        // Same instances in a new list: no new call to the provider
+        mAdapter.updateDataSet(new ArrayList<>(mAdapter.getCurrentItems()));
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            assertEquals((long) ids.get(position), mAdapter.getItemId(position));
+        }
+        assertEquals(30, mProviderCalls);
+    }
+
+    @Test
+    public void testIdReleasedWhenItemRemoved() {
+        long id = mAdapter.getItemId(5);
+        AbstractFlexibleItem item = mAdapter.getItem(5);
+        mAdapter.removeItem(5);
+        assertEquals(0, mInterning.size());
+        // An equal item added later is a new item
+        mAdapter.addItem(5, item);
+        assertNotEquals(id, mAdapter.getItemId(5));
+        assertEquals(1, mInterning.size());
+    }
+
+    @Test
+    public void testIdKeptWhenItemMoved() {
+        long id = mAdapter.getItemId(5);
+        mAdapter.moveItem(5, 20);
+        assertEquals(id, mAdapter.getItemId(20));
+        mAdapter.moveItem(20, 0);
+        assertEquals(id, mAdapter.getItemId(0));
+        assertEquals(1, mInterning.size());
+        assertEquals(1, mProviderCalls);
+    }
+
+    @Test
+    public void testIdKeptWhenItemUpdated() {
+        long id = mAdapter.getItemId(5);
+        // Equal copy of the item with a new content
+        AbstractFlexibleItem copy = DatabaseService.newSimpleItem(6, null);
+        mAdapter.updateItem(5, copy, null);
+        assertEquals(id, mAdapter.getItemId(5));
+        assertEquals(1, mInterning.size());
+        // Same instance updated in place
+        mAdapter.updateItem(copy);
+        assertEquals(id, mAdapter.getItemId(5));
+        assertEquals(1, mInterning.size());
+    }
+
+}
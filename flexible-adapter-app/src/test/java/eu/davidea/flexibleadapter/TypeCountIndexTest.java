@@ -0,0 +1,117 @@
+package eu.davidea.flexibleadapter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.samples.flexibleadapter.R;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+/**
+ * @author Davide Steduto
+ * @since 17/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class TypeCountIndexTest {
+
+    private static final int HEADER = R.layout.recycler_header_item;
+    private static final int SIMPLE = R.layout.recycler_simple_item;
+
+    private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseService.getInstance().createHeadersSectionsDatabase(30, 5);
+        mAdapter = new FlexibleAdapter<>(DatabaseService.getInstance().getDatabaseList());
+        mAdapter.setTypeCountIndexEnabled(true);
+        mAdapter.showAllHeaders();
+    }
+
+    /**
+     * Same logic of getItemCountOfTypes() without index.
+     */
+    private int scanCountOfType(int viewType) {
+        int count = 0;
+        for (int i = 0; i < mAdapter.getItemCount(); i++) {
+            if (mAdapter.getItemViewType(i) == viewType) count++;
+        }
+        return count;
+    }
+
+    private void assertCounts() {
+        assertEquals(scanCountOfType(HEADER), mAdapter.getItemCountOfTypes(HEADER));
+        assertEquals(scanCountOfType(SIMPLE), mAdapter.getItemCountOfTypes(SIMPLE));
+        assertEquals(mAdapter.getItemCount(), mAdapter.getItemCountOfTypes(HEADER, SIMPLE, HEADER));
+    }
+
+    @Test
+    public void testCountsFollowChanges() {
+        assertCounts();
+        mAdapter.addItem(3, DatabaseService.newSimpleItem(31, null));
+        assertCounts();
+        mAdapter.removeItem(1);
+        assertCounts();
+        mAdapter.moveItem(2, 10);
+        assertCounts();
+        mAdapter.hideAllHeaders();
+        assertCounts();
+        mAdapter.showAllHeaders();
+        assertCounts();
+    }
+
+    @Test
+    public void testRemoveItemsOfType() {
+        mAdapter.removeItemsOfType(HEADER);
+        assertEquals(0, scanCountOfType(HEADER));
+        assertCounts();
+        mAdapter.clearAllBut(HEADER);
+        assertEquals(0, mAdapter.getItemCount());
+        assertCounts();
+    }
+
+    @Test
+    public void testRemoveItemsOfTypeByRanges() {
+        List<AbstractFlexibleItem> expected = new ArrayList<>();
+        for (AbstractFlexibleItem item : mAdapter.getCurrentItems()) {
+            if (item.getItemViewType() != SIMPLE) expected.add(item);
+        }
+        // Sections are ranges of simple items between the headers
+        mAdapter.removeItemsOfType(SIMPLE);
+        assertEquals(expected, mAdapter.getCurrentItems());
+        assertCounts();
+        // Nothing left to remove
+        mAdapter.removeItemsOfType(SIMPLE);
+        assertEquals(expected, mAdapter.getCurrentItems());
+    }
+
+    @Test
+    public void testScrollableHeadersAndFootersOfTypeRetained() {
+        AbstractFlexibleItem scrollableHeader = DatabaseService.newSimpleItem(100, null);
+        AbstractFlexibleItem scrollableFooter = DatabaseService.newSimpleItem(101, null);
+        mAdapter.addScrollableHeader(scrollableHeader);
+        mAdapter.addScrollableFooter(scrollableFooter);
+
+        mAdapter.removeItemsOfType(SIMPLE);
+        assertEquals(scrollableHeader, mAdapter.getItem(0));
+        assertEquals(scrollableFooter, mAdapter.getItem(mAdapter.getItemCount() - 1));
+        assertEquals(2, scanCountOfType(SIMPLE));
+        assertCounts();
+
+        // Only the Scrollable Header and Footer of the type are left: nothing to retain
+        mAdapter.clearAllBut(SIMPLE);
+        assertEquals(2, mAdapter.getItemCount());
+        assertEquals(scrollableHeader, mAdapter.getItem(0));
+        assertEquals(scrollableFooter, mAdapter.getItem(1));
+        assertCounts();
+    }
+
+}
@@ -1,7 +1,14 @@
 package eu.davidea.flexibleadapter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.recyclerview.widget.RecyclerView;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -10,13 +17,20 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.items.IKeyable;
+import eu.davidea.flexibleadapter.items.IVersionable;
 import eu.davidea.flexibleadapter.utils.Log;
 import eu.davidea.samples.flexibleadapter.items.SimpleItem;
 import eu.davidea.samples.flexibleadapter.services.DatabaseService;
@@ -29,9 +43,37 @@ import eu.davidea.samples.flexibleadapter.services.DatabaseService;
 @Config(sdk = 25)
 public class UpdateDataSetTest {
 
+    /* Computes the background tasks in the calling thread */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     private FlexibleAdapter<AbstractFlexibleItem> mAdapter;
     private List<AbstractFlexibleItem> mInitialItems;
 
+    private static class KeyedItem extends SimpleItem implements IKeyable, IVersionable {
+        private final long key, version;
+
+        KeyedItem(long key, long version) {
+            super("I" + key, null);
+            this.key = key;
+            this.version = version;
+        }
+
+        @Override
+        public long getItemKey() {
+            return key;
+        }
+
+        @Override
+        public long getContentVersion() {
+            return version;
+        }
+    }
+
     @Before
     public void setUp() throws Exception {
         DatabaseService.getInstance().createHeadersSectionsDatabase(30, 5);
@@ -123,6 +165,250 @@ public class UpdateDataSetTest {
         }
     }
 
+    @Test
+    public void testUpdateDataSet_CoalescedKeepsTheLatest() throws Exception {
+        final int[] updates = new int[1];
+        mAdapter = new FlexibleAdapter<AbstractFlexibleItem>(mInitialItems) {
+            @Override
+            protected void onPostUpdate() {
+                super.onPostUpdate();
+                updates[0]++;
+            }
+        };
+        // Computations run on demand
+        final List<Runnable> tasks = new ArrayList<>();
+        mAdapter.setBackgroundExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        mAdapter.setUpdateCoalescingEnabled(true);
+        int initialUpdates = updates[0];
+
+        List<AbstractFlexibleItem> inFlightItems = new ArrayList<>(mInitialItems.subList(0, 5));
+        mAdapter.updateDataSet(inFlightItems, true);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(1, tasks.size());
+
+        List<AbstractFlexibleItem> latestItems = null;
+        for (int i = 1; i <= 3; i++) {
+            latestItems = new ArrayList<>(mInitialItems.subList(0, 10 * i));
+            mAdapter.updateDataSet(latestItems, true);
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+        // Nothing else is computed while a computation is in flight
+        assertEquals(1, tasks.size());
+
+        // The in-flight computation is not cancelled: it completes and dispatches its result
+        tasks.remove(0).run();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(inFlightItems, mAdapter.getCurrentItems());
+        assertEquals(1, updates[0] - initialUpdates);
+        assertEquals(1, tasks.size());
+
+        // Then only the latest data set is computed and dispatched
+        tasks.remove(0).run();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(latestItems, mAdapter.getCurrentItems());
+        assertEquals(2, mAdapter.getDroppedUpdatesCount());
+        assertEquals(2, updates[0] - initialUpdates);
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void testUpdateDataSet_KeyedDiffSameAsDefaultDiff() throws Exception {
+        Random random = new Random(9);
+        List<AbstractFlexibleItem> oldItems = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            oldItems.add(new KeyedItem(i, 0));
+        }
+        // Removed, added, changed and moved items
+        List<AbstractFlexibleItem> newItems = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            if (random.nextInt(4) > 0) newItems.add(new KeyedItem(i, random.nextInt(2)));
+        }
+        Collections.shuffle(newItems, random);
+
+        FlexibleAdapter<AbstractFlexibleItem> defaultDiff = new FlexibleAdapter<>(oldItems);
+        FlexibleAdapter<AbstractFlexibleItem> keyedDiff = new FlexibleAdapter<>(oldItems);
+        keyedDiff.setKeyedDiffEnabled(true);
+        for (FlexibleAdapter<AbstractFlexibleItem> adapter : Arrays.asList(defaultDiff, keyedDiff)) {
+            adapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+            adapter.setNotifyMoveOfFilteredItems(true);
+            adapter.updateDataSet(newItems, true);
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(newItems, defaultDiff.getCurrentItems());
+        assertEquals(defaultDiff.getCurrentItems(), keyedDiff.getCurrentItems());
+    }
+
+    @Test
+    public void testUpdateDataSet_AdditionsWithMovesNotifiedInBounds() throws Exception {
+        List<AbstractFlexibleItem> newItems = new ArrayList<>(mInitialItems);
+        newItems.add(0, DatabaseService.newSimpleItem(31, null));
+        newItems.add(10, DatabaseService.newSimpleItem(32, null));
+        newItems.add(DatabaseService.newSimpleItem(33, null));
+        newItems.remove(20);
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        mAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        mAdapter.setNotifyMoveOfFilteredItems(true);
+
+        // Replays the notifications, the inserted items are unknown
+        final List<AbstractFlexibleItem> replayedItems = new ArrayList<>(mAdapter.getCurrentItems());
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                for (int i = 0; i < itemCount; i++) {
+                    replayedItems.add(positionStart + i, null);
+                }
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                replayedItems.subList(positionStart, positionStart + itemCount).clear();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                replayedItems.add(toPosition, replayedItems.remove(fromPosition));
+            }
+        });
+        mAdapter.updateDataSet(newItems, true);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(newItems, mAdapter.getCurrentItems());
+        assertEquals(mAdapter.getItemCount(), replayedItems.size());
+        for (int i = 0; i < replayedItems.size(); i++) {
+            if (replayedItems.get(i) != null) assertSame(replayedItems.get(i), mAdapter.getItem(i));
+        }
+    }
+
+    @Test
+    public void testUpdateDataSet_SnapshotPublishedAfterQuickUpdates() throws Exception {
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        mAdapter.setBackgroundExecutor(DIRECT_EXECUTOR);
+        mAdapter.setSnapshotEnabled(true);
+
+        // A pending snapshot, then 2 updates superseding each other
+        mAdapter.addItem(0, DatabaseService.newSimpleItem(31, null));
+        mAdapter.updateDataSet(new ArrayList<>(mInitialItems.subList(0, 10)), true);
+        List<AbstractFlexibleItem> latestItems = new ArrayList<>(mInitialItems.subList(0, 20));
+        mAdapter.updateDataSet(latestItems, true);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(latestItems, mAdapter.getCurrentItems());
+
+        // Read in background, where the pending modifications are not published on demand
+        final List<List<AbstractFlexibleItem>> snapshots = new ArrayList<>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                snapshots.add(mAdapter.getSnapshot());
+            }
+        });
+        reader.start();
+        reader.join();
+        assertEquals(latestItems, snapshots.get(0));
+    }
+
+    private static List<AbstractFlexibleItem> createSimpleItems(int size) {
+        List<AbstractFlexibleItem> items = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            items.add(DatabaseService.newSimpleItem(i, null));
+        }
+        return items;
+    }
+
+    @Test
+    public void testAdoptDataSet_ListNotCopied() throws Exception {
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        List<AbstractFlexibleItem> items = createSimpleItems(20);
+        mAdapter.adoptDataSet(items, false);
+        assertEquals(items, mAdapter.getCurrentItems());
+
+        // The Adapter modifies the adopted list itself
+        AbstractFlexibleItem newItem = DatabaseService.newSimpleItem(21, null);
+        mAdapter.addItem(0, newItem);
+        assertSame(newItem, items.get(0));
+        assertEquals(21, items.size());
+    }
+
+    @Test
+    public void testAdoptDataSet_ModifiedOutsideTheAdapter() throws Exception {
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        List<AbstractFlexibleItem> items = createSimpleItems(20);
+        mAdapter.adoptDataSet(items, false);
+        items.remove(0);
+        try {
+            mAdapter.updateDataSet(createSimpleItems(10));
+            fail("The modification of the adopted list must be detected");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testAdoptDataSet_ModifiedByTheAdapter() throws Exception {
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        mAdapter.adoptDataSet(createSimpleItems(20), false);
+        mAdapter.addItem(0, DatabaseService.newSimpleItem(21, null));
+        mAdapter.removeItem(5);
+        mAdapter.moveItem(0, 10);
+
+        // No misuse detected
+        List<AbstractFlexibleItem> newItems = createSimpleItems(10);
+        mAdapter.updateDataSet(newItems);
+        assertEquals(newItems, mAdapter.getCurrentItems());
+    }
+
+    @Test
+    public void testDefaultExecutor_SerialForEachAdapter() throws Exception {
+        FlexibleAdapter<AbstractFlexibleItem> otherAdapter = new FlexibleAdapter<>(mInitialItems);
+        mAdapter = new FlexibleAdapter<>(mInitialItems);
+        assertSame(mAdapter.getBackgroundExecutor(), mAdapter.getBackgroundExecutor());
+        assertThat(mAdapter.getBackgroundExecutor(), Matchers.not(otherAdapter.getBackgroundExecutor()));
+
+        // A long computation of an Adapter doesn't delay the other Adapters
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        mAdapter.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        otherAdapter.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS), Matchers.is(true));
+
+        // The computations of the same Adapter are in sequence
+        final List<Integer> sequence = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch completed = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            final int n = i;
+            mAdapter.getBackgroundExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    sequence.add(n);
+                    completed.countDown();
+                }
+            });
+        }
+        assertEquals(0, sequence.size());
+        blocked.countDown();
+        assertThat(completed.await(5, TimeUnit.SECONDS), Matchers.is(true));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), sequence);
+    }
+
     private void changeDatabaseContent() {
         // Remove item pos=2
         AbstractFlexibleItem itemToDelete = mAdapter.getItem(2);
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * List implementation backing the items of {@link FlexibleAdapter} when enabled with
+ * {@link FlexibleAdapter#setChunkedListEnabled(boolean)}.
+ * <p>Elements are stored in chunks of at most {@value #CHUNK_SIZE} elements, a Fenwick tree
+ * over the chunk sizes locates the chunk of any index in O(log chunks). Insertions and removals
+ * shift only the elements of one chunk, instead of the whole tail of the list as
+ * {@link ArrayList} does; {@link #subList(int, int)}{@code .clear()} drops entire chunks at
+ * once. Sequential access (iterators and loops on ascending indexes) doesn't need the tree,
+ * the last chunk used is remembered.</p>
+ * <b>Note:</b> As {@code ArrayList}, this class is not synchronized.
+ *
+ * @param <E> the type of the elements
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class ChunkedList<E> extends AbstractList<E> {
+
+    static final int CHUNK_SIZE = 512;
+    private static final int BULK_FILL = CHUNK_SIZE * 3 / 4;
+
+    private final List<Object[]> mChunks = new ArrayList<>();
+    private int[] mSizes = new int[8];
+    /* Fenwick tree (1-based) over the chunk sizes */
+    private int[] mTree = new int[9];
+    private int mSize = 0;
+    /* Last chunk located and its start index, -1 when the chunk structure has changed */
+    private int mLastChunk = -1, mLastStart;
+
+    ChunkedList() {
+    }
+
+    ChunkedList(@NonNull Collection<? extends E> items) {
+        addAll(items);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, mSize);
+        int chunk = locate(index);
+        return (E) mChunks.get(chunk)[index - mLastStart];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index, mSize);
+        int chunk = locate(index);
+        Object[] items = mChunks.get(chunk);
+        E previous = (E) items[index - mLastStart];
+        items[index - mLastStart] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, mSize + 1);
+        int chunk;
+        if (mChunks.isEmpty()) {
+            addChunk(0, new Object[CHUNK_SIZE], 0);
+            rebuildTree();
+            chunk = 0;
+            mLastStart = 0;
+        } else if (index == mSize) {
+            chunk = mChunks.size() - 1;
+            mLastStart = mSize - mSizes[chunk];
+        } else {
+            chunk = locate(index);
+        }
+        if (mSizes[chunk] == CHUNK_SIZE) {
+            splitChunk(chunk);
+            // When appending, the element goes at the end of the last chunk
+            chunk = locate(index == mSize ? index - 1 : index);
+        }
+        Object[] items = mChunks.get(chunk);
+        int offset = index - mLastStart;
+        System.arraycopy(items, offset, items, offset + 1, mSizes[chunk] - offset);
+        items[offset] = element;
+        mSizes[chunk]++;
+        treeAdd(chunk, 1);
+        mLastChunk = chunk;
+        mSize++;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(@NonNull Collection<? extends E> items) {
+        return addAll(mSize, items);
+    }
+
+    @Override
+    public boolean addAll(int index, @NonNull Collection<? extends E> items) {
+        checkIndex(index, mSize + 1);
+        if (items.isEmpty()) {
+            return false;
+        }
+        if (index == mSize && (mChunks.isEmpty() || items.size() > CHUNK_SIZE)) {
+            // Bulk append: fill new chunks directly, leaving room for later insertions
+            Object[] elements = items.toArray();
+            for (int i = 0; i < elements.length; i += BULK_FILL) {
+                int count = Math.min(BULK_FILL, elements.length - i);
+                Object[] chunk = new Object[CHUNK_SIZE];
+                System.arraycopy(elements, i, chunk, 0, count);
+                addChunk(mChunks.size(), chunk, count);
+            }
+            mSize += elements.length;
+            rebuildTree();
+            modCount++;
+            return true;
+        }
+        for (E item : items) {
+            add(index++, item);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index, mSize);
+        int chunk = locate(index);
+        Object[] items = mChunks.get(chunk);
+        int offset = index - mLastStart;
+        E previous = (E) items[offset];
+        System.arraycopy(items, offset + 1, items, offset, mSizes[chunk] - offset - 1);
+        items[--mSizes[chunk]] = null;
+        treeAdd(chunk, -1);
+        mSize--;
+        modCount++;
+        if (mSizes[chunk] == 0) {
+            removeChunks(chunk, chunk + 1);
+            rebuildTree();
+        } else if (mSizes[chunk] < CHUNK_SIZE / 4) {
+            mergeChunk(chunk);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        mChunks.clear();
+        mSize = 0;
+        mLastChunk = -1;
+        rebuildTree();
+        modCount++;
+    }
+
+    /**
+     * Removes the range of elements dropping entire chunks at once: only the first and the last
+     * chunk of the range are shifted. Used by {@code subList(fromIndex, toIndex).clear()}.
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) return;
+        int first = locate(fromIndex), firstStart = mLastStart;
+        int last = locate(toIndex - 1), lastStart = mLastStart;
+        if (first == last) {
+            Object[] items = mChunks.get(first);
+            int from = fromIndex - firstStart, to = toIndex - firstStart;
+            System.arraycopy(items, to, items, from, mSizes[first] - to);
+            for (int i = mSizes[first] - (to - from); i < mSizes[first]; i++) {
+                items[i] = null;
+            }
+            mSizes[first] -= to - from;
+        } else {
+            // Truncate the first chunk, drop the head of the last chunk, remove the ones between
+            Object[] items = mChunks.get(first);
+            for (int i = fromIndex - firstStart; i < mSizes[first]; i++) {
+                items[i] = null;
+            }
+            mSizes[first] = fromIndex - firstStart;
+            items = mChunks.get(last);
+            int to = toIndex - lastStart;
+            System.arraycopy(items, to, items, 0, mSizes[last] - to);
+            for (int i = mSizes[last] - to; i < mSizes[last]; i++) {
+                items[i] = null;
+            }
+            mSizes[last] -= to;
+            removeChunks(first + 1, last);
+        }
+        mSize -= toIndex - fromIndex;
+        // Drop the chunks left empty
+        for (int chunk = mChunks.size() - 1; chunk >= 0; chunk--) {
+            if (mSizes[chunk] == 0) {
+                removeChunks(chunk, chunk + 1);
+            }
+        }
+        rebuildTree();
+        modCount++;
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (bound));
+        }
+    }
+
+    /**
+     * Finds the chunk holding the index and sets {@link #mLastStart} to its start index.
+     *
+     * @return the chunk holding the index
+     */
+    private int locate(int index) {
+        // Sequential access: same or next chunk
+        if (mLastChunk >= 0 && mLastChunk < mChunks.size() && index >= mLastStart) {
+            if (index < mLastStart + mSizes[mLastChunk]) {
+                return mLastChunk;
+            }
+            int next = mLastChunk + 1;
+            int nextStart = mLastStart + mSizes[mLastChunk];
+            if (next < mChunks.size() && index < nextStart + mSizes[next]) {
+                mLastChunk = next;
+                mLastStart = nextStart;
+                return next;
+            }
+        }
+        // Fenwick descent: find the chunk where the prefix sum exceeds the index
+        int chunks = mChunks.size(), position = 0, remaining = index;
+        for (int step = Integer.highestOneBit(Math.max(chunks, 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= chunks && mTree[next] <= remaining) {
+                position = next;
+                remaining -= mTree[next];
+            }
+        }
+        mLastChunk = position;
+        mLastStart = index - remaining;
+        return position;
+    }
+
+    private void splitChunk(int chunk) {
+        Object[] items = mChunks.get(chunk);
+        int half = mSizes[chunk] / 2;
+        Object[] second = new Object[CHUNK_SIZE];
+        System.arraycopy(items, half, second, 0, mSizes[chunk] - half);
+        for (int i = half; i < mSizes[chunk]; i++) {
+            items[i] = null;
+        }
+        int secondSize = mSizes[chunk] - half;
+        mSizes[chunk] = half;
+        addChunk(chunk + 1, second, secondSize);
+        rebuildTree();
+    }
+
+    /**
+     * Merges a small chunk with the next (or the previous) chunk, if the elements fit.
+     */
+    private void mergeChunk(int chunk) {
+        int other = chunk + 1 < mChunks.size() ? chunk + 1 : chunk - 1;
+        if (other < 0) return;
+        int left = Math.min(chunk, other), right = Math.max(chunk, other);
+        if (mSizes[left] + mSizes[right] > CHUNK_SIZE * 3 / 4) return;
+        System.arraycopy(mChunks.get(right), 0, mChunks.get(left), mSizes[left], mSizes[right]);
+        mSizes[left] += mSizes[right];
+        removeChunks(right, right + 1);
+        rebuildTree();
+    }
+
+    private void addChunk(int chunk, Object[] items, int size) {
+        int count = mChunks.size();
+        if (count + 1 > mSizes.length) {
+            int[] sizes = new int[mSizes.length * 2];
+            System.arraycopy(mSizes, 0, sizes, 0, count);
+            mSizes = sizes;
+        }
+        System.arraycopy(mSizes, chunk, mSizes, chunk + 1, count - chunk);
+        mSizes[chunk] = size;
+        mChunks.add(chunk, items);
+        mLastChunk = -1;
+    }
+
+    private void removeChunks(int from, int to) {
+        if (from >= to) return;
+        int count = mChunks.size();
+        System.arraycopy(mSizes, to, mSizes, from, count - to);
+        mChunks.subList(from, to).clear();
+        mLastChunk = -1;
+    }
+
+    private void rebuildTree() {
+        int chunks = mChunks.size();
+        if (mTree.length < chunks + 1) {
+            mTree = new int[mSizes.length + 1];
+        }
+        for (int i = 1; i <= chunks; i++) {
+            mTree[i] = mSizes[i - 1];
+        }
+        for (int i = 1; i <= chunks; i++) {
+            int parent = i + (i & -i);
+            if (parent <= chunks) {
+                mTree[parent] += mTree[i];
+            }
+        }
+        mLastChunk = -1;
+    }
+
+    private void treeAdd(int chunk, int delta) {
+        for (int i = chunk + 1; i <= mChunks.size(); i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+}
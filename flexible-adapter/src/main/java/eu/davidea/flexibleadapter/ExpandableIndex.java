@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Child to parent map used by {@link FlexibleAdapter#getExpandableOf(IFlexible)} when enabled
+ * with {@link FlexibleAdapter#setExpandableIndexEnabled(boolean)}.
+ * <p>Children of every displayed and expanded parent are registered when the parent is
+ * expanded or inserted already expanded; they are unregistered (together with the children
+ * of their expanded sub expandables, for multi-level trees) when the parent is collapsed or
+ * removed. Hidden children remain registered: the hidden status of the child is verified at
+ * lookup time, so deleted and restored children don't need special handling and the lookup
+ * doesn't depend on the number of siblings.</p>
+ * <b>Note:</b> Sub items must be added through the Adapter methods, items are keyed by
+ * {@code equals()} and {@code hashCode()}.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class ExpandableIndex {
+
+    private final Map<Object, IExpandable> mParents = new HashMap<>();
+    private boolean mValid = false;
+
+    /**
+     * @param items the list this index belongs to
+     * @param child the child item
+     * @return the expanded parent holding the child as not hidden sub item, null otherwise
+     */
+    @Nullable
+    IExpandable getExpandableOf(@NonNull List<?> items, @NonNull Object child) {
+        if (!mValid) {
+            rebuild(items);
+        }
+        IExpandable parent = mParents.get(child);
+        if (parent == null || !parent.isExpanded() || ((IFlexible) child).isHidden()) {
+            return null;
+        }
+        return parent;
+    }
+
+    /**
+     * Registers the inserted items that are already expanded.
+     *
+     * @param items the list after the insertion
+     */
+    void onInserted(@NonNull List<?> items, int start, int count) {
+        if (!mValid) return;
+        for (int i = start; i < start + count; i++) {
+            Object item = items.get(i);
+            if (item instanceof IExpandable && ((IExpandable) item).isExpanded()) {
+                register((IExpandable) item);
+            }
+        }
+    }
+
+    /**
+     * Registers (again) all the sub items of an expanded parent.
+     */
+    void onExpanded(@NonNull IExpandable parent) {
+        if (!mValid) return;
+        register(parent);
+    }
+
+    /**
+     * Unregisters the sub items of a parent that has been collapsed or removed, and
+     * recursively, the sub items of its expanded sub expandables.
+     */
+    void onCollapsed(@NonNull IExpandable parent) {
+        if (!mValid) return;
+        List<?> subItems = parent.getSubItems();
+        if (subItems == null) return;
+        for (Object subItem : subItems) {
+            if (mParents.get(subItem) == parent) {
+                mParents.remove(subItem);
+            }
+            if (subItem instanceof IExpandable && ((IExpandable) subItem).isExpanded()) {
+                onCollapsed((IExpandable) subItem);
+            }
+        }
+    }
+
+    /**
+     * Discards the whole map, it will be rebuilt at the next lookup.
+     */
+    void invalidate() {
+        mValid = false;
+        mParents.clear();
+    }
+
+    private void register(IExpandable parent) {
+        List<?> subItems = parent.getSubItems();
+        if (subItems == null) return;
+        for (Object subItem : subItems) {
+            mParents.put(subItem, parent);
+        }
+    }
+
+    private void rebuild(List<?> items) {
+        mParents.clear();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            // Backward: the first parent in the list wins
+            Object item = items.get(i);
+            if (item instanceof IExpandable && ((IExpandable) item).isExpanded()) {
+                register((IExpandable) item);
+            }
+        }
+        mValid = true;
+    }
+
+}
@@ -17,19 +17,21 @@ package eu.davidea.flexibleadapter;
 
 import static eu.davidea.flexibleadapter.utils.LayoutUtils.getClassName;
 
-import android.annotation.SuppressLint;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.IntRange;
+import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
@@ -37,16 +39,31 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import eu.davidea.flexibleadapter.helpers.ItemTouchHelperCallback;
 import eu.davidea.flexibleadapter.helpers.StickyHeaderHelper;
@@ -54,7 +71,10 @@ import eu.davidea.flexibleadapter.items.IExpandable;
 import eu.davidea.flexibleadapter.items.IFilterable;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.items.IKeyable;
+import eu.davidea.flexibleadapter.items.ISearchable;
 import eu.davidea.flexibleadapter.items.ISectionable;
+import eu.davidea.flexibleadapter.items.IVersionable;
 import eu.davidea.viewholders.ExpandableViewHolder;
 import eu.davidea.viewholders.FlexibleViewHolder;
 
@@ -112,18 +132,51 @@ public class FlexibleAdapter<T extends IFlexible>
 
     /* The main container for ALL items */
     private List<T> mItems, mTempItems, mOriginalList;
+    private boolean useChunkedList = false;
 
-    /* HashSet, AsyncTask and DiffUtil objects, will increase performance in big list */
-    private Set<T> mHashItems;
+    /* Snapshot published in the UI thread for the readers in background */
+    private volatile Snapshot<T> mSnapshot;
+    private boolean snapshotEnabled = false, snapshotPending = false;
+    private long mSnapshotVersion = 0L;
+
+    /* List adopted without copy: the one to transfer and the guard of the adopted one */
+    private List<T> mTransferItems, mAdoptedItems;
+    private volatile ListIterator<T> mAdoptedGuard;
+
+    /* Stable ids, cached by item instance */
+    private IdProvider<? super T> mIdProvider;
+    private Map<T, Long> mStableIds;
+
+    /* HashSet, background task and DiffUtil objects, will increase performance in big list */
     private List<Notification> mNotifications;
-    private FilterAsyncTask mFilterAsyncTask;
-    private long start, time;
+    private NotificationBuffer mDiffBuffer;
+    private final List<NotificationBuffer> mBatchBuffers = new ArrayList<>();
+    private static ExecutorService sDiffExecutor;
+    private static final int PARALLEL_DIFF_THRESHOLD = 500, PARALLEL_FILTER_THRESHOLD = 1000;
+    private static final int NOTIFICATION_POOL_SIZE = 256;
+    private final List<Notification> mNotificationPool = new ArrayList<>();
+    private int notificationsCount, dispatchedNotificationsCount;
+    /* Thread pool shared by the default serial Executors of the Adapters */
+    private static ExecutorService sDefaultExecutor;
+    private Executor mBackgroundExecutor, mDefaultExecutor;
+    /* Generation of the latest task: a task with a different generation is stale */
+    private volatile int mGeneration = 0;
+    /* Polled by the pool threads of the parallel filter */
+    private volatile FilterTask mRunningTask;
+    private FilterTask mInFlightTask;
+    private long start, time, requestTime, timeToFirstFrame;
+    /* Latest-wins coalescing of updateDataSet */
+    private boolean coalesceUpdates = false;
+    private long minDispatchInterval = 0L, lastDispatchTime = 0L;
+    private List<T> mPendingItems;
+    private int mPendingWhat, droppedUpdates = 0;
     private boolean useDiffUtil = false;
     private DiffUtil.DiffResult diffResult;
     private DiffUtilCallback diffUtilCallback;
+    private PositionIndex mPositionIndex;
 
     /* Handler for delayed actions */
-    protected final int UPDATE = 1, FILTER = 2, LOAD_MORE_COMPLETE = 8;
+    protected final int UPDATE = 1, FILTER = 2, DISPATCH_PENDING = 3, PUBLISH_SNAPSHOT = 4, LOAD_MORE_COMPLETE = 8;
     protected Handler mHandler = new Handler(Looper.getMainLooper(), new HandlerCallback());
 
     /* Deleted items and RestoreList (Undo) */
@@ -131,12 +184,15 @@ public class FlexibleAdapter<T extends IFlexible>
     private List<Integer> mUndoPositions;
     private boolean restoreSelection = false, multiRange = false, unlinkOnRemoveHeader = false,
             permanentDelete = true, adjustSelected = true;
+    /* Selection already shifted by the operations of the batch being dispatched */
+    private boolean dispatchingBatch = false;
 
     /* Scrollable Headers/Footers items */
     private List<T> mScrollableHeaders, mScrollableFooters;
 
     /* Section items (with sticky headers) */
     private boolean headersShown = false, recursive = false;
+    private SectionIndex mSectionIndex;
     private int mStickyElevation;
     private StickyHeaderHelper mStickyHeaderHelper;
     private boolean mStickyHeadersEnabled = false;
@@ -144,15 +200,44 @@ public class FlexibleAdapter<T extends IFlexible>
 
     /* ViewTypes */
     protected LayoutInflater mInflater;
-    @SuppressLint("UseSparseArrays")//We can usually count Type instances on the fingers of a hand
-    private HashMap<Integer, T> mTypeInstances = new HashMap<>();
+    private SparseArray<T> mTypeInstances = new SparseArray<>();
     private boolean autoMap = false;
+    /* Registered ViewTypes, null when the ViewTypes are auto-mapped */
+    private SparseArray<ViewHolderFactory> mTypeFactories;
+    private SparseIntArray mTypeLayouts;
+    private TypeCountIndex mTypeCountIndex;
 
     /* Filter */
     private Serializable mFilterEntity = null, mOldFilterEntity = "";
     private Set<IExpandable> mExpandedFilterFlags;
     private boolean notifyChangeOfUnfilteredItems = true, filtering = false,
-            notifyMoveOfFilteredItems = false;
+            notifyMoveOfFilteredItems = false, useKeyedDiff = false, useAdaptiveDiff = false,
+            useParallelDiff = false, useFilterRefinement = false, useParallelFilter = false;
+    /* Refinement: candidates of the previous filter, with their filter and source list */
+    private List<T> mRefinementItems;
+    private Serializable mRefinementFilter;
+    private List<T> mRefinementSource;
+    private int mRefinementVersion;
+    /* Search index, with the items matching the running filter */
+    private SearchIndex mSearchIndex;
+    private Set<Object> mSearchMatches;
+    /* List and version of the data set last retained by the search index */
+    private List<T> mSearchIndexItems;
+    private int mSearchIndexVersion;
+    /* Parallel filter, results of the filter computed in advance for the flattened items,
+     * read with a cursor in the same order of the sequential filter */
+    private List<T> mPrecomputedItems;
+    private boolean[] mPrecomputedMatches;
+    private int mPrecomputedCursor;
+    /* Filter cache: matched items by filter, valid for a version of the data set */
+    private Map<Serializable, FilterCacheEntry> mFilterCache;
+    private Set<Object> mCachedMatches, mRecordedMatches;
+    private volatile int mDataSetVersion = 0;
+    /* Progressive filter, size of the first page of results */
+    private int mProgressivePageSize = 0;
+    /* Adaptive diff, visible range captured in the UI thread and offset of the window */
+    private int mVisibleFirst = RecyclerView.NO_POSITION, mVisibleLast = RecyclerView.NO_POSITION;
+
     private static int ANIMATE_TO_LIMIT = 1000;
     private int mAnimateToLimit = ANIMATE_TO_LIMIT;
 
@@ -160,6 +245,7 @@ public class FlexibleAdapter<T extends IFlexible>
     private int mMinCollapsibleLevel = 0, mSelectedLevel = -1;
     private boolean scrollOnExpand = false, collapseOnExpand = false, collapseSubLevels = false,
             childSelected = false, parentSelected = false;
+    private ExpandableIndex mExpandableIndex;
 
     /* Drag&Drop and Swipe helpers */
     private ItemTouchHelperCallback mItemTouchHelperCallback;
@@ -243,11 +329,7 @@ public class FlexibleAdapter<T extends IFlexible>
     public FlexibleAdapter(@Nullable List<T> items, @Nullable Object listeners, boolean stableIds) {
         super(stableIds);
         // Copy of the original list
-        if (items == null) {
-            mItems = new ArrayList<>();
-        } else {
-            mItems = new ArrayList<>(items);
-        }
+        mItems = createItemList(items);
         // Initialize internal lists
         mScrollableHeaders = new ArrayList<>();
         mScrollableFooters = new ArrayList<>();
@@ -564,6 +646,52 @@ public class FlexibleAdapter<T extends IFlexible>
         return childSelected;
     }
 
+    /**
+     * Stores the selection by stable key of the items instead of by position. The key is the
+     * same stable id of {@link #getItemId(int)}: provided by the {@link IdProvider} if set,
+     * otherwise by the items implementing {@link IKeyable}. The {@code hashCode()} is not
+     * unique, so the other items cannot be selected while this mode is enabled: the
+     * {@link InterningIdProvider} gives collision-free ids to any item.
+     * <p>The selection follows the items: it doesn't need to be adjusted when items are added,
+     * removed or moved, and it survives {@link #updateDataSet(List, boolean)}, the filter and
+     * the {@code animateTo} diff; the selected items filtered out are still selected when they
+     * are displayed again. Only the methods that enumerate the selection (such as
+     * {@link #getSelectedPositions()} and the first call of {@link #getSelectedItemCount()}
+     * after a change of the items) scan the current items: they are O(n) in the number of
+     * items, not of the selected items.</p>
+     * The current selection is converted.
+     * <p>Default value is {@code false} (selection by position).</p>
+     *
+     * @param enabled true to store the selection by key, false to store it by position
+     * @return this Adapter, so the call can be chained
+     * @see IKeyable
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setSelectionByKeyEnabled(boolean enabled) {
+        log.i("Set selectionByKeyEnabled=%s", enabled);
+        setSelectionKeyed(enabled);
+        return this;
+    }
+
+    /**
+     * @return true if the selection is stored by key, false if by position
+     * @see #setSelectionByKeyEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isSelectionByKeyEnabled() {
+        return isSelectionKeyed();
+    }
+
+    @Override
+    final long getSelectionKey(int position) {
+        T item = getItem(position);
+        if (item == null || (mIdProvider == null && !(item instanceof IKeyable))) {
+            // The hashCode is not a unique key
+            return RecyclerView.NO_ID;
+        }
+        return getStableIdOf(item);
+    }
+
     /*--------------*/
     /* MAIN METHODS */
     /*--------------*/
@@ -607,6 +735,7 @@ public class FlexibleAdapter<T extends IFlexible>
      * @see #updateDataSet(List)
      * @see #setAnimateToLimit(int)
      * @see #onPostUpdate()
+     * @see #setUpdateCoalescingEnabled(boolean)
      * @since 5.0.0-b7 Created
      * <br>5.0.0-rc2 Copy of the Original List done internally
      */
@@ -616,16 +745,31 @@ public class FlexibleAdapter<T extends IFlexible>
         if (items == null) {
             items = new ArrayList<>();
         }
-        if (animate) {
-            mHandler.removeCallbacksAndMessages(null);
+        if (mInFlightTask == null) {
+            checkAdoptedItems();
+        }
+        mDataSetVersion++;
+        if (items != mTransferItems) {
+            mTransferItems = null;
+            mAdoptedItems = null;
+            mAdoptedGuard = null;
+        }
+        if (animate && coalesceUpdates) {
+            coalesceUpdate(hasFilter() ? FILTER : UPDATE, items);
+        } else if (animate) {
+            // Only the previous requests: the snapshot and the running task still dispatch
+            mHandler.removeMessages(UPDATE);
+            mHandler.removeMessages(FILTER);
             mHandler.sendMessage(Message.obtain(mHandler, (hasFilter() ? FILTER : UPDATE), items));
         } else if (hasFilter()) {
             filterItems(items);
         } else {
-            // Copy of the original list
-            List<T> newItems = new ArrayList<>(items);
+            // Copy of the original list, unless adopted
+            List<T> newItems = items == mTransferItems ? adoptItemList(items) : createItemList(items);
+            mTransferItems = null;
             prepareItemsForUpdate(newItems);
             mItems = newItems;
+            resetIndexes();
             // Execute instant reset on init
             log.w("updateDataSet with notifyDataSetChanged!");
             notifyDataSetChanged();
@@ -633,6 +777,37 @@ public class FlexibleAdapter<T extends IFlexible>
         }
     }
 
+    /**
+     * Same as {@link #updateDataSet(List, boolean)}, but the Adapter takes the ownership of
+     * the provided list instead of copying it: on very big lists, this avoids the copies of
+     * the list done by the synchronous update and by the background computation.
+     * <p>The list becomes part of the Adapter and <b>must not</b> be modified, nor reused,
+     * by the caller anymore: a new list must be provided for the next update. The Adapter
+     * itself modifies it, for instance to add the headers and the expanded sub items.</p>
+     * <b>Note:</b> The misuse is detected at the next update or at the end of the background
+     * computation, with the modification count of the list, for lists having fail-fast
+     * iterators such as {@link ArrayList}.
+     *
+     * @param items   the new data set, owned by the Adapter from now on
+     * @param animate true to animate the changes, false for an instant refresh
+     * @throws IllegalStateException if the previously adopted list has been modified outside
+     *                               the Adapter
+     * @see #updateDataSet(List, boolean)
+     * @since 5.1.0
+     */
+    @CallSuper
+    public void adoptDataSet(@Nullable List<T> items, boolean animate) {
+        if (items != null) {
+            if (mInFlightTask == null) {
+                checkAdoptedItems();
+            }
+            mTransferItems = items;
+            mAdoptedItems = items;
+            mAdoptedGuard = items.listIterator();
+        }
+        updateDataSet(items, animate);
+    }
+
     /**
      * Returns the object of the generic type <b>T</b>.
      * <p>This method cannot be overridden since the entire library relies on it.</p>
@@ -665,15 +840,113 @@ public class FlexibleAdapter<T extends IFlexible>
 
     /**
      * This method is mostly used by the adapter if items have stableIds.
+     * <p>The id is, in order of priority: the id of the {@link IdProvider} if set, the key of
+     * the items implementing {@link IKeyable}, the {@code hashCode()} of the item.</p>
      *
      * @param position the position of the current item
-     * @return Hashcode of the item at the specific position
+     * @return the stable id of the item at the specific position
+     * @see #setIdProvider(IdProvider)
      * @since 5.0.0-b1
+     * <br>5.1.0 Stable ids from IdProvider and IKeyable
      */
     @Override
     public long getItemId(int position) {
         T item = getItem(position);
-        return item != null ? item.hashCode() : RecyclerView.NO_ID;
+        return item != null ? getStableIdOf(item) : RecyclerView.NO_ID;
+    }
+
+    /**
+     * Sets the provider of the stable ids returned by {@link #getItemId(int)}, to be used when
+     * the {@code hashCode()} of the items is not unique or too expensive to be computed at
+     * every layout pass. The id of each item instance is asked once to the provider and cached
+     * until the instance leaves the list: the instances still present after the list has been
+     * replaced keep their cached id.
+     * <p><b>Tip:</b> Use the built-in {@link InterningIdProvider} to generate collision-free ids
+     * for the items that are {@code equals}.</p>
+     * <b>Note:</b> Stable ids must be enabled with the constructor
+     * {@link #FlexibleAdapter(List, Object, boolean)}.
+     *
+     * @param idProvider the provider of the ids, null to use the default ids
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public FlexibleAdapter<T> setIdProvider(@Nullable IdProvider<? super T> idProvider) {
+        log.i("Set IdProvider %s", getClassName(idProvider));
+        if (mStableIds != null) {
+            for (T item : new ArrayList<>(mStableIds.keySet())) {
+                releaseStableId(item);
+            }
+        }
+        mIdProvider = idProvider;
+        mStableIds = idProvider != null ? new IdentityHashMap<T, Long>() : null;
+        return this;
+    }
+
+    /**
+     * @return the current provider of the stable ids, null if not set
+     * @see #setIdProvider(IdProvider)
+     * @since 5.1.0
+     */
+    @Nullable
+    public IdProvider<? super T> getIdProvider() {
+        return mIdProvider;
+    }
+
+    private long getStableIdOf(@NonNull T item) {
+        if (mIdProvider != null) {
+            Long id = mStableIds.get(item);
+            if (id == null) {
+                id = mIdProvider.getStableId(item);
+                mStableIds.put(item, id);
+            }
+            return id;
+        }
+        if (item instanceof IKeyable) {
+            return ((IKeyable) item).getItemKey();
+        }
+        return item.hashCode();
+    }
+
+    /**
+     * Forgets the cached id of an instance leaving the list.
+     */
+    private void releaseStableId(@NonNull T item) {
+        if (mStableIds.remove(item) != null && mIdProvider instanceof InterningIdProvider) {
+            ((InterningIdProvider) mIdProvider).releaseStableId(item);
+        }
+    }
+
+    /**
+     * Keeps the cached ids of the instances still present after the list has been replaced
+     * and releases the others. The new instances receive their id before the old ones are
+     * released, so the updated copies of the items keep the same interned id.
+     */
+    private void retainStableIds() {
+        if (mStableIds.isEmpty()) {
+            return;
+        }
+        Map<T, Long> previousIds = mStableIds;
+        mStableIds = new IdentityHashMap<>();
+        List<T> newInstances = new ArrayList<>();
+        for (T item : mItems) {
+            Long id = previousIds.remove(item);
+            if (id != null) {
+                mStableIds.put(item, id);
+            } else {
+                newInstances.add(item);
+            }
+        }
+        if (previousIds.isEmpty()) {
+            return;
+        }
+        if (mIdProvider instanceof InterningIdProvider) {
+            for (T item : newInstances) {
+                getStableIdOf(item);
+            }
+            for (T item : previousIds.keySet()) {
+                ((InterningIdProvider) mIdProvider).releaseStableId(item);
+            }
+        }
     }
 
     /**
@@ -723,6 +996,15 @@ public class FlexibleAdapter<T extends IFlexible>
      * @since 5.0.0-b1
      */
     public final int getItemCountOfTypes(Integer... viewTypes) {
+        if (mTypeCountIndex != null) {
+            int count = 0;
+            for (int i = 0; i < viewTypes.length; i++) {
+                if (!containsViewType(viewTypes, i, viewTypes[i])) {
+                    count += mTypeCountIndex.getCount(mItems, viewTypes[i]);
+                }
+            }
+            return count;
+        }
         List<Integer> viewTypeList = Arrays.asList(viewTypes);
         int count = 0;
         for (int i = 0; i < getItemCount(); i++) {
@@ -733,6 +1015,32 @@ public class FlexibleAdapter<T extends IFlexible>
         return count;
     }
 
+    /**
+     * Maintains the number of items of each ViewType while items are added and removed, so
+     * {@link #getItemCountOfTypes(Integer...)} doesn't scan the list, and
+     * {@link #removeItemsOfType(Integer...)} and {@link #clearAllBut(Integer...)} can stop the
+     * scan as soon as all items involved have been found.
+     * <p>Default value is {@code false} (the list is scanned).</p>
+     *
+     * @param enabled true to maintain the counts, false to scan the list
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setTypeCountIndexEnabled(boolean enabled) {
+        log.i("Set typeCountIndexEnabled=%s", enabled);
+        mTypeCountIndex = enabled ? new TypeCountIndex() : null;
+        return this;
+    }
+
+    /**
+     * @return true if the counts of the ViewTypes are maintained, false otherwise
+     * @see #setTypeCountIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isTypeCountIndexEnabled() {
+        return mTypeCountIndex != null;
+    }
+
     /**
      * Gets an unmodifiable view of the internal list of items.
      *
@@ -744,6 +1052,95 @@ public class FlexibleAdapter<T extends IFlexible>
         return Collections.unmodifiableList(mItems);
     }
 
+    /**
+     * Enables the publication of the {@link Snapshot} of the items, readable from any thread
+     * with {@link #getSnapshot()}. Once enabled, a new snapshot is published in the UI thread
+     * after the modifications of each message loop, copying the list once for all of them.
+     * <p>Default value is {@code false}.</p>
+     * <b>Note:</b> Must be called in the UI thread.
+     *
+     * @param enabled true to publish the snapshots, false to stop
+     * @return this Adapter, so the call can be chained
+     * @see #getSnapshot()
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setSnapshotEnabled(boolean enabled) {
+        log.i("Set snapshotEnabled=%s", enabled);
+        this.snapshotEnabled = enabled;
+        if (enabled) {
+            publishSnapshot();
+        } else {
+            mSnapshot = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the snapshots are published, false otherwise
+     * @see #setSnapshotEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * Gets the latest published snapshot of the items. The snapshot is immutable: it can be
+     * read from a background thread without locks, while the Adapter keeps changing.
+     * <p>In the UI thread, the pending modifications are published first, so the snapshot
+     * matches the current items. In background, the snapshot may miss the modifications of
+     * the current message loop: use {@link Snapshot#getVersion()} to detect a new version.</p>
+     * The same instance is returned until the items are modified.
+     *
+     * @return the latest snapshot of the items
+     * @throws IllegalStateException if the snapshots are not enabled
+     * @see #setSnapshotEnabled(boolean)
+     * @since 5.1.0
+     */
+    @NonNull
+    public final Snapshot<T> getSnapshot() {
+        if (snapshotPending && Looper.myLooper() == Looper.getMainLooper()) {
+            publishSnapshot();
+        }
+        Snapshot<T> snapshot = mSnapshot;
+        if (snapshot == null) {
+            throw new IllegalStateException("Snapshots are not enabled, call setSnapshotEnabled(true) in the UI thread.");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Switches the internal list of items between an {@code ArrayList} (default) and a chunked
+     * list. The chunked list stores the items in blocks of few hundreds of elements: inserting
+     * and removing items in the middle of the list (add, remove, move, expand and collapse)
+     * shift only the items of one block instead of all the following items, at the cost of a
+     * slightly slower random access (O(log n)).
+     * <p><b>Tip:</b> Enable it on very big lists (tens of thousands of items) that are modified
+     * often in the middle. The current items are copied in the new list.</p>
+     * Default value is {@code false} ({@code ArrayList} is used).
+     *
+     * @param enabled true to use the chunked list, false to use an {@code ArrayList}
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setChunkedListEnabled(boolean enabled) {
+        log.i("Set chunkedListEnabled=%s", enabled);
+        if (useChunkedList != enabled) {
+            useChunkedList = enabled;
+            mItems = createItemList(mItems);
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the internal list of items is a chunked list, false if it's an ArrayList
+     * @see #setChunkedListEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isChunkedListEnabled() {
+        return useChunkedList;
+    }
+
     /**
      * You can override this method to define your own concept of "Empty". This method is never
      * called internally.
@@ -768,7 +1165,62 @@ public class FlexibleAdapter<T extends IFlexible>
      * @since 5.0.0-b1
      */
     public final int getGlobalPositionOf(IFlexible item) {
-        return item != null ? mItems.indexOf(item) : -1;
+        if (item == null) {
+            return -1;
+        }
+        if (mSectionIndex != null && item instanceof IHeader) {
+            return mSectionIndex.getHeaderPosition(mItems, item);
+        }
+        return mPositionIndex != null ? mPositionIndex.indexOf(mItems, item) : mItems.indexOf(item);
+    }
+
+    /**
+     * Enables or disables the internal index of the item positions. When enabled,
+     * {@link #getGlobalPositionOf(IFlexible)} (and all the methods relying on it) doesn't scan
+     * the entire list anymore: the position is read from the index that the Adapter keeps in
+     * sync on every insert, remove, move, expand and collapse.
+     * <p><b>Tip:</b> Enable it on big lists (thousands of items), where the many lookups done by
+     * headers, expandable, restore and sticky headers features become expensive.</p>
+     * <b>Note:</b> Items must implement {@link Object#hashCode()} and {@link Object#equals(Object)},
+     * must be unique and their hashCode must not change while displayed.
+     * <p>Default value is {@code false} (disabled).</p>
+     *
+     * @param enabled true to create and maintain the index, false to discard it
+     * @return this Adapter, so the call can be chained
+     * @see #verifyPositionIndex()
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setPositionIndexEnabled(boolean enabled) {
+        log.i("Set positionIndexEnabled=%s", enabled);
+        if (enabled && mPositionIndex == null) {
+            mPositionIndex = new PositionIndex();
+        } else if (!enabled) {
+            mPositionIndex = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the index of the item positions is enabled, false otherwise
+     * @see #setPositionIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isPositionIndexEnabled() {
+        return mPositionIndex != null;
+    }
+
+    /**
+     * Debug method to compare the index of the item positions with the real positions in the
+     * internal list. Every mismatch is logged as error.
+     * <p><b>Note:</b> This method scans the entire list, it is intended for debug builds and
+     * tests only.</p>
+     *
+     * @return true if the index is consistent or disabled, false if at least one position differs
+     * @see #setPositionIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean verifyPositionIndex() {
+        return mPositionIndex == null || mPositionIndex.verify(mItems, log);
     }
 
     /**
@@ -1041,6 +1493,7 @@ public class FlexibleAdapter<T extends IFlexible>
         if (mScrollableHeaders.size() > 0) {
             log.d("Remove all scrollable headers");
             mItems.removeAll(mScrollableHeaders);
+            resetIndexes();
             notifyItemRangeRemoved(0, mScrollableHeaders.size());
             mScrollableHeaders.clear();
         }
@@ -1057,6 +1510,7 @@ public class FlexibleAdapter<T extends IFlexible>
         if (mScrollableFooters.size() > 0) {
             log.d("Remove all scrollable footers");
             mItems.removeAll(mScrollableFooters);
+            resetIndexes();
             notifyItemRangeRemoved(getItemCount() - mScrollableFooters.size(), mScrollableFooters.size());
             mScrollableFooters.clear();
         }
@@ -1180,6 +1634,42 @@ public class FlexibleAdapter<T extends IFlexible>
         return this;
     }
 
+    /**
+     * Enables or disables the internal index of the sections. When enabled, the Adapter keeps
+     * the sorted positions of all the header items in sync on every insert, remove, move, expand
+     * and collapse, so {@link #getSectionHeader(int)} and the position of any header (used by
+     * {@link #getSectionItems(IHeader)}, {@link #getSectionItemPositions(IHeader)} and
+     * {@link #getGlobalPositionOf(IFlexible)}) are resolved without scanning the list.
+     * <p><b>Tip:</b> Enable it on big lists with sticky headers: the sticky header is resolved at
+     * every scroll event.</p>
+     * <b>Note:</b> Header items must implement {@link Object#hashCode()} and
+     * {@link Object#equals(Object)} and must be unique.
+     * <p>Default value is {@code false} (disabled).</p>
+     *
+     * @param enabled true to create and maintain the index, false to discard it
+     * @return this Adapter, so the call can be chained
+     * @see #setPositionIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setSectionIndexEnabled(boolean enabled) {
+        log.i("Set sectionIndexEnabled=%s", enabled);
+        if (enabled && mSectionIndex == null) {
+            mSectionIndex = new SectionIndex();
+        } else if (!enabled) {
+            mSectionIndex = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the index of the sections is enabled, false otherwise
+     * @see #setSectionIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isSectionIndexEnabled() {
+        return mSectionIndex != null;
+    }
+
     /**
      * Retrieves all the header items.
      *
@@ -1258,6 +1748,10 @@ public class FlexibleAdapter<T extends IFlexible>
             return null;
         }
         // When headers are visible and sticky, get the previous header
+        if (mSectionIndex != null) {
+            int headerPosition = mSectionIndex.getHeaderPositionAt(mItems, Math.min(position, getItemCount() - 1));
+            return headerPosition >= 0 ? (IHeader) getItem(headerPosition) : null;
+        }
         for (int i = position; i >= 0; i--) {
             T item = getItem(i);
             if (isHeader(item)) {
@@ -1269,17 +1763,21 @@ public class FlexibleAdapter<T extends IFlexible>
 
     /**
      * Provides all the items that belongs to the section represented by the provided header.
+     * <p>With the section index, the scan is bounded by the next header.</p>
      *
      * @param header the {@code IHeader} item that represents the section
      * @return NonNull list of all items in the provided section
+     * @see #setSectionIndexEnabled(boolean)
      * @since 5.0.0-b6
+     * <br>5.1.0 Section bounded by the section index
      */
     @NonNull
     public List<ISectionable> getSectionItems(@NonNull IHeader header) {
         List<ISectionable> sectionItems = new ArrayList<>();
         int startPosition = getGlobalPositionOf(header);
+        int endPosition = getSectionEndPosition(startPosition);
         T item = getItem(++startPosition);
-        while (hasSameHeader(item, header)) {
+        while (startPosition < endPosition && hasSameHeader(item, header)) {
             sectionItems.add((ISectionable) item);
             item = getItem(++startPosition);
         }
@@ -1290,22 +1788,39 @@ public class FlexibleAdapter<T extends IFlexible>
      * Provides all the item positions that belongs to the section represented by the provided
      * header.
      *
+     * <p>With the section index, the scan is bounded by the next header.</p>
+     *
      * @param header the {@code IHeader} item that represents the section
      * @return NonNull list of all item positions in the provided section
+     * @see #setSectionIndexEnabled(boolean)
      * @since 5.0.0-b8
+     * <br>5.1.0 Section bounded by the section index
      */
     @NonNull
     public List<Integer> getSectionItemPositions(@NonNull IHeader header) {
         List<Integer> sectionItemPositions = new ArrayList<>();
         int position = getGlobalPositionOf(header);
+        int endPosition = getSectionEndPosition(position);
         T item = getItem(++position);
-        while (hasSameHeader(item, header)) {
+        while (position < endPosition && hasSameHeader(item, header)) {
             sectionItemPositions.add(position);
             item = getItem(++position);
         }
         return sectionItemPositions;
     }
 
+    /**
+     * @param headerPosition the position of the header, -1 if not displayed
+     * @return the position of the next header if known by the section index, the item count
+     * otherwise
+     */
+    private int getSectionEndPosition(int headerPosition) {
+        if (mSectionIndex != null && headerPosition >= 0) {
+            return mSectionIndex.getSectionEnd(mItems, headerPosition);
+        }
+        return getItemCount();
+    }
+
     /**
      * Evaluates if Adapter has headers shown.
      *
@@ -1661,6 +2176,7 @@ public class FlexibleAdapter<T extends IFlexible>
             header.setHidden(true);
             // Remove and notify removals
             mItems.remove(position);
+            updateIndexesOnRemove(position, 1, Collections.singletonList((T) header));
             notifyItemRemoved(position);
         }
     }
@@ -1754,10 +2270,49 @@ public class FlexibleAdapter<T extends IFlexible>
             log.e("Item for ViewType not found! position=%s, items=%s", position, getItemCount());
             return 0;
         }
-        // Map the view type if not done yet
-        mapViewTypeFrom(item);
+        int viewType = item.getItemViewType();
+        if (mTypeFactories == null || mTypeFactories.get(viewType) == null) {
+            // Map the view type if not done yet
+            mapViewTypeFrom(item);
+            autoMap = true;
+        }
+        return viewType;
+    }
+
+    /**
+     * Registers a ViewType up front, as alternative to the AutoMap: the ViewHolders of this
+     * ViewType are created by the factory, without the need of an item instance.
+     * <p>The ViewTypes not registered, for instance of scrollable headers/footers and of the
+     * progress item, are still mapped by the AutoMap and created by
+     * {@link IFlexible#createViewHolder(View, FlexibleAdapter)} of an item instance.</p>
+     *
+     * @param viewType  the ViewType, as returned by {@link IFlexible#getItemViewType()}
+     * @param layoutRes the layout to inflate for this ViewType
+     * @param factory   the factory of the ViewHolders for this ViewType
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public FlexibleAdapter<T> registerViewType(int viewType, @LayoutRes int layoutRes,
+                                               @NonNull ViewHolderFactory factory) {
+        if (mTypeFactories == null) {
+            mTypeFactories = new SparseArray<>();
+            mTypeLayouts = new SparseIntArray();
+        }
+        mTypeFactories.put(viewType, factory);
+        mTypeLayouts.put(viewType, layoutRes);
         autoMap = true;
-        return item.getItemViewType();
+        log.i("Registered viewType %s with layout %s", viewType, layoutRes);
+        return this;
+    }
+
+    /**
+     * @param viewType the ViewType to check
+     * @return true if the ViewType has been registered, false otherwise
+     * @see #registerViewType(int, int, ViewHolderFactory)
+     * @since 5.1.0
+     */
+    public boolean isViewTypeRegistered(int viewType) {
+        return mTypeFactories != null && mTypeFactories.get(viewType) != null;
     }
 
     /**
@@ -1775,15 +2330,20 @@ public class FlexibleAdapter<T extends IFlexible>
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (mInflater == null) {
+            mInflater = LayoutInflater.from(parent.getContext());
+        }
+        ViewHolderFactory factory = mTypeFactories != null ? mTypeFactories.get(viewType) : null;
+        if (factory != null) {
+            View view = mInflater.inflate(mTypeLayouts.get(viewType), parent, false);
+            return factory.createViewHolder(view, (FlexibleAdapter<IFlexible>) this);
+        }
         T item = getViewTypeInstance(viewType);
         if (item == null || !autoMap) {
             // If everything has been set properly, this should never happen ;-)
             throw new IllegalStateException(
                     String.format("ViewType instance not found for viewType %s. You should implement the AutoMap properly.", viewType));
         }
-        if (mInflater == null) {
-            mInflater = LayoutInflater.from(parent.getContext());
-        }
         return item.createViewHolder(mInflater.inflate(item.getLayoutRes(), parent, false), this);
     }
 
@@ -2370,6 +2930,40 @@ public class FlexibleAdapter<T extends IFlexible>
                 expandable.getSubItems().size() > 0;
     }
 
+    /**
+     * Enables or disables the internal map between the children and their expanded parent.
+     * When enabled, {@link #getExpandableOf(IFlexible)} (and all the methods relying on it, such
+     * as selection, remove and restore of items) doesn't scan all the sub items of all the
+     * expanded parents anymore: the map is kept in sync on every expand, collapse, add and
+     * remove operation, multi-level expandable included.
+     * <p><b>Note:</b> Sub items must be added and removed through the Adapter methods, must
+     * implement {@link Object#hashCode()} and {@link Object#equals(Object)} and must be unique.</p>
+     * Default value is {@code false} (disabled).
+     *
+     * @param enabled true to create and maintain the map, false to discard it
+     * @return this Adapter, so the call can be chained
+     * @see #setPositionIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setExpandableIndexEnabled(boolean enabled) {
+        log.i("Set expandableIndexEnabled=%s", enabled);
+        if (enabled && mExpandableIndex == null) {
+            mExpandableIndex = new ExpandableIndex();
+        } else if (!enabled) {
+            mExpandableIndex = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the map between the children and their parent is enabled, false otherwise
+     * @see #setExpandableIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isExpandableIndexEnabled() {
+        return mExpandableIndex != null;
+    }
+
     /**
      * Retrieves the parent of a child for the provided position.
      * <p>Only for a real child of an expanded parent.</p>
@@ -2395,6 +2989,9 @@ public class FlexibleAdapter<T extends IFlexible>
      */
     @Nullable
     public IExpandable getExpandableOf(T child) {
+        if (mExpandableIndex != null) {
+            return child != null ? mExpandableIndex.getExpandableOf(mItems, child) : null;
+        }
         for (T parent : mItems) {
             if (isExpandable(parent)) {
                 IExpandable expandable = (IExpandable) parent;
@@ -2651,8 +3248,10 @@ public class FlexibleAdapter<T extends IFlexible>
             List<T> subItems = getExpandableList(expandable, true);
             mItems.addAll(position + 1, subItems);
             subItemsCount = subItems.size();
+            updateIndexesOnInsert(position + 1, subItemsCount);
             // Save expanded state
             expandable.setExpanded(true);
+            updateIndexesOnExpand(expandable, true);
 
             // Automatically smooth scroll the current expandable item to show as much
             // children as possible
@@ -2788,10 +3387,13 @@ public class FlexibleAdapter<T extends IFlexible>
             if (collapseSubLevels) {
                 recursiveCollapse(position + 1, subItems, expandable.getExpansionLevel());
             }
+            int itemCount = getItemCount();
             mItems.removeAll(subItems);
+            updateIndexesOnRemove(position + 1, itemCount - getItemCount(), subItems);
             subItemsCount = subItems.size();
             // Save expanded state
             expandable.setExpanded(false);
+            updateIndexesOnExpand(expandable, false);
 
             // Collapse!
             if (notifyParent) {
@@ -2918,11 +3520,179 @@ public class FlexibleAdapter<T extends IFlexible>
             log.e("Cannot updateItem on position out of OutOfBounds!");
             return;
         }
-        mItems.set(position, item);
+        T oldItem = mItems.set(position, item);
+        updateIndexesOnChange(position, oldItem);
         log.d("updateItem notifyItemChanged on position " + position);
         notifyItemChanged(position, payload);
     }
 
+    /*---------------*/
+    /* BATCH METHODS */
+    /*---------------*/
+
+    /**
+     * Starts a transaction of modifications, received for instance as delta from a backend:
+     * the operations are recorded by the returned {@link Batch} and applied all together by
+     * {@link Batch#commit()}, directly on the current list and without any diff.
+     * <p>The notifications of all the operations are merged in contiguous ranges and
+     * dispatched once at the commit, followed by the headers of the new items and by the
+     * change of the headers and parents of the removed items. The selection follows the
+     * moved items and is shifted by each operation.</p>
+     * <b>Note:</b> Items to update, remove and move are found as in
+     * {@link #getGlobalPositionOf(IFlexible)}: enable {@link #setPositionIndexEnabled(boolean)}
+     * to find them in constant time, with items having a stable {@code equals()}, usually
+     * by key.
+     * <p>Must be called in the UI thread.</p>
+     *
+     * @return a new batch of operations
+     * @see Batch
+     * @since 5.1.0
+     */
+    @NonNull
+    public Batch beginBatch() {
+        return new Batch();
+    }
+
+    private void applyBatch(List<BatchOperation> operations) {
+        int initialCount = getMainItemCount();
+        NotificationBuffer buffer = new NotificationBuffer();
+        buffer.reset();
+        List<T> insertedItems = new ArrayList<>();
+        Set<IFlexible> parentsToUpdate = new HashSet<>();
+        for (BatchOperation operation : operations) {
+            T item = (T) operation.item;
+            switch (operation.operation) {
+                case Notification.ADD:
+                    int position = operation.position;
+                    if (position < 0 || position > getItemCount()) {
+                        position = getMainItemCount() + mScrollableHeaders.size();
+                    }
+                    mItems.add(position, item);
+                    updateIndexesOnInsert(position, 1);
+                    adjustSelected(position, 1);
+                    buffer.add(0, position, Notification.ADD);
+                    insertedItems.add(item);
+                    break;
+                case Notification.CHANGE:
+                    position = getGlobalPositionOf(item);
+                    if (position < 0) {
+                        log.w("Batch Cannot update item not found %s", item);
+                        break;
+                    }
+                    T oldItem = mItems.set(position, item);
+                    updateIndexesOnChange(position, oldItem);
+                    buffer.add(0, position, Notification.CHANGE);
+                    break;
+                case Notification.REMOVE:
+                    position = getGlobalPositionOf(item);
+                    if (position < 0) {
+                        log.w("Batch Cannot remove item not found %s", item);
+                        break;
+                    }
+                    // The expanded sub items are removed together with their parent
+                    List<T> removedItems = getBatchBlock(position);
+                    for (int i = 0; i < removedItems.size(); i++) {
+                        removedItems.get(i).setHidden(true);
+                        removeSelection(position + i);
+                        if (mOriginalList != null) {
+                            mOriginalList.remove(removedItems.get(i));
+                        }
+                    }
+                    mItems.subList(position, position + removedItems.size()).clear();
+                    updateIndexesOnRemove(position, removedItems.size(), removedItems);
+                    adjustSelected(position, -removedItems.size());
+                    for (int i = 0; i < removedItems.size(); i++) {
+                        buffer.add(0, position, Notification.REMOVE);
+                    }
+                    insertedItems.remove(item);
+                    addIfNotNull(parentsToUpdate, getHeaderOf(item));
+                    addIfNotNull(parentsToUpdate, getExpandableOf(item));
+                    break;
+                case Notification.MOVE:
+                    int fromPosition = getGlobalPositionOf(item);
+                    if (fromPosition < 0) {
+                        log.w("Batch Cannot move item not found %s", item);
+                        break;
+                    }
+                    List<T> movedItems = getBatchBlock(fromPosition);
+                    int count = movedItems.size();
+                    int toPosition = Math.max(0, Math.min(operation.position, getItemCount() - count));
+                    if (toPosition == fromPosition) {
+                        break;
+                    }
+                    // Preserve selection (by key, it follows the items)
+                    boolean[] selected = new boolean[count];
+                    if (!isSelectionKeyed()) {
+                        for (int i = 0; i < count; i++) {
+                            selected[i] = removeSelection(fromPosition + i);
+                        }
+                    }
+                    mItems.subList(fromPosition, fromPosition + count).clear();
+                    updateIndexesOnRemove(fromPosition, count, movedItems, true);
+                    adjustSelected(fromPosition, -count);
+                    mItems.addAll(toPosition, movedItems);
+                    updateIndexesOnInsert(toPosition, count);
+                    adjustSelected(toPosition, count);
+                    for (int i = 0; i < count; i++) {
+                        if (selected[i]) {
+                            addSelection(toPosition + i);
+                        }
+                    }
+                    // The block moves one item at the time
+                    for (int i = 0; i < count; i++) {
+                        if (toPosition > fromPosition) {
+                            buffer.add(fromPosition, toPosition + count - 1, Notification.MOVE);
+                        } else {
+                            buffer.add(fromPosition + i, toPosition + i, Notification.MOVE);
+                        }
+                    }
+                    break;
+            }
+        }
+        log.d("Batch of %s operations, %s notifications", operations.size(), buffer.notifications.size());
+        // The selection has been shifted by each operation
+        dispatchingBatch = true;
+        try {
+            dispatchNotifications(buffer.notifications, Payload.CHANGE);
+        } finally {
+            dispatchingBatch = false;
+        }
+        // Resolve the sections once
+        if (!insertedItems.isEmpty()) {
+            showOrUpdateHeaders(insertedItems);
+        }
+        for (IFlexible parent : parentsToUpdate) {
+            int position = getGlobalPositionOf(parent);
+            if (position >= 0) {
+                notifyItemChanged(position, Payload.CHANGE);
+            }
+        }
+        // Update empty view
+        if (mUpdateListener != null && (initialCount == 0) != (getMainItemCount() == 0)) {
+            mUpdateListener.onUpdateEmptyView(getMainItemCount());
+        }
+    }
+
+    /**
+     * @return the item at the position followed by its expanded sub items, if any
+     */
+    private List<T> getBatchBlock(int position) {
+        T item = mItems.get(position);
+        if (!isExpanded(item)) {
+            return Collections.singletonList(item);
+        }
+        List<T> block = new ArrayList<>();
+        block.add(item);
+        block.addAll(getExpandableList((IExpandable) item, true));
+        return block;
+    }
+
+    private static void addIfNotNull(Set<IFlexible> items, IFlexible item) {
+        if (item != null) {
+            items.add(item);
+        }
+    }
+
     /*----------------*/
     /* ADDING METHODS */
     /*----------------*/
@@ -3036,6 +3806,7 @@ public class FlexibleAdapter<T extends IFlexible>
             mItems.addAll(items);
             position = itemCount;
         }
+        updateIndexesOnInsert(position, items.size());
         // Notify range addition
         if (notify) {
             log.d("addItems on position=%s itemCount=%s", position, items.size());
@@ -3193,6 +3964,7 @@ public class FlexibleAdapter<T extends IFlexible>
         // If parent is collapsed there's no need to add sub items.
         if (parent.isExpanded()) {
             added = addItems(parentPosition + 1 + getRecursiveSubItemCount(parent, subPosition), subItems);
+            updateIndexesOnExpand(parent, true);
         }
         // Notify the parent about the change if requested and not already done as Header
         if (payload != null && !isHeader((T) parent)) {
@@ -3326,6 +4098,11 @@ public class FlexibleAdapter<T extends IFlexible>
         List<Integer> positionsToRemove = new ArrayList<>();
         int startPosition = Math.max(0, mScrollableHeaders.size());
         int endPosition = getItemCount() - mScrollableFooters.size();
+        if (mTypeCountIndex != null && getMainItemCountOfTypes(startPosition, endPosition, viewTypes) == 0) {
+            // Nothing to retain: single range
+            removeRange(startPosition, endPosition - startPosition);
+            return;
+        }
         for (int i = startPosition; i < endPosition; i++) {
             if (!viewTypeList.contains(getItemViewType(i))) {
                 positionsToRemove.add(i);
@@ -3504,6 +4281,9 @@ public class FlexibleAdapter<T extends IFlexible>
      * <p><b>Tips:</b>
      * <br>- This method is opposite of {@link #clearAllBut(Integer...)}.
      * <br>- View types of Scrollable Headers and Footers are ignored!</p>
+     * When the type counts are enabled, nothing is scanned if there are no items of the types,
+     * and the scan stops as soon as all items have been found. The contiguous items are
+     * removed by ranges, from the last one.
      *
      * @param viewTypes the viewTypes to remove
      * @see #clear()
@@ -3511,19 +4291,72 @@ public class FlexibleAdapter<T extends IFlexible>
      * @see #removeItem(int, Object)
      * @see #removeItems(List)
      * @see #removeAllSelectedItems()
+     * @see #setTypeCountIndexEnabled(boolean)
      * @since 5.0.0-b5
+     * <br>5.1.0 Removal by ranges driven by the type counts
      */
     public void removeItemsOfType(Integer... viewTypes) {
         List<Integer> viewTypeList = Arrays.asList(viewTypes);
         List<Integer> itemsToRemove = new ArrayList<>();
-        int startPosition = Math.max(0, mScrollableHeaders.size() - 1);
+        int startPosition = Math.max(0, mScrollableHeaders.size());
         int endPosition = getItemCount() - mScrollableFooters.size() - 1;
-        for (int i = endPosition; i >= startPosition; i--) {
+        // With the counts, the scan stops when all items have been found
+        int remaining = mTypeCountIndex != null
+                ? getMainItemCountOfTypes(startPosition, endPosition + 1, viewTypes) : Integer.MAX_VALUE;
+        if (remaining == 0) {
+            return;
+        }
+        boolean hasExpanded = false;
+        for (int i = endPosition; i >= startPosition && remaining > 0; i--) {
             if (viewTypeList.contains(getItemViewType(i))) {
                 itemsToRemove.add(i);
+                hasExpanded |= isExpanded(i);
+                remaining--;
+            }
+        }
+        if (hasExpanded) {
+            // Expanded items are collapsed one by one
+            this.removeItems(itemsToRemove);
+            return;
+        }
+        // Positions are descending: remove the contiguous ranges from the last one
+        int positionStart = 0, itemCount = 0;
+        multiRange = true;
+        for (int position : itemsToRemove) {
+            if (itemCount > 0 && position != positionStart - 1) {
+                removeRange(positionStart, itemCount);
+                itemCount = 0;
             }
+            positionStart = position;
+            itemCount++;
+        }
+        multiRange = false;
+        if (itemCount > 0) {
+            removeRange(positionStart, itemCount);
         }
-        this.removeItems(itemsToRemove);
+    }
+
+    /**
+     * Counts the items of the types between the Scrollable Headers and Footers, from the type
+     * counts: only the few Scrollable Headers and Footers are scanned to be excluded.
+     *
+     * @param startPosition the first position of the main items
+     * @param endPosition   the position after the last main item
+     */
+    private int getMainItemCountOfTypes(int startPosition, int endPosition, Integer... viewTypes) {
+        List<Integer> viewTypeList = Arrays.asList(viewTypes);
+        int count = getItemCountOfTypes(viewTypes);
+        for (int i = 0; i < startPosition; i++) {
+            if (viewTypeList.contains(getItemViewType(i))) {
+                count--;
+            }
+        }
+        for (int i = endPosition; i < getItemCount(); i++) {
+            if (viewTypeList.contains(getItemViewType(i))) {
+                count--;
+            }
+        }
+        return count;
     }
 
     /**
@@ -3621,12 +4454,14 @@ public class FlexibleAdapter<T extends IFlexible>
                     }
                 }
             }
+            // Remove selection (by key, the item is still at positionStart)
+            removeSelection(isSelectionKeyed() ? positionStart : position);
             // Remove item from internal list
             mItems.remove(positionStart);
+            updateIndexesOnRemove(positionStart, 1, Collections.singletonList(item));
             if (permanentDelete && mOriginalList != null) {
                 mOriginalList.remove(item);
             }
-            removeSelection(position);
         }
 
         // Notify range removal
@@ -4017,16 +4852,15 @@ public class FlexibleAdapter<T extends IFlexible>
     /**
      * This method performs a further step to nicely animate the moved items. When false, the
      * items are not moved but removed, to be added at the correct position.
-     * <p>The process is very slow on big list of the order of ~3-5000 items and higher,
-     * due to the calculation of the correct position for each item to be shifted.
-     * Use with caution!</p>
-     * The slowness is higher when the filter is cleared out.
+     * <p>Only the minimal set of items is moved: the items out of the longest sequence already
+     * in the correct relative order. The calculation is O(n log n).</p>
      * <p>Default value is {@code false}.</p>
      *
      * @param notifyMove true to animate move changes after filtering or update data set,
      *                   false otherwise
      * @return this Adapter, so the call can be chained
-     * @since 5.0.0-b8
+     * @since 5.0.0-b8 Created
+     * <br>5.1.0 Minimal moves in O(n log n)
      */
     public final FlexibleAdapter<T> setNotifyMoveOfFilteredItems(boolean notifyMove) {
         log.i("Set notifyMoveOfFilteredItems=%s", notifyMove);
@@ -4034,6 +4868,282 @@ public class FlexibleAdapter<T extends IFlexible>
         return this;
     }
 
+    /**
+     * Enables the keyed diff for the synchronization animations of updateDataSet and filter:
+     * the items are matched by their {@link IKeyable#getItemKey()} in primitive maps reused
+     * by each update, instead of hashing the entire items in new HashSets.
+     * <p>An item having the same key of the new item is rebound when their
+     * {@link IVersionable#getContentVersion()} differ; without version,
+     * {@link IFlexible#shouldNotifyChange(IFlexible)} is still called.</p>
+     * <b>Note:</b> The keyed diff is used only when all old and new items implement
+     * {@link IKeyable} with unique keys, otherwise the diff falls back to equals/hashCode.
+     * <p>Default value is {@code false}.</p>
+     *
+     * @param enabled true to match the items by key, false to use equals/hashCode
+     * @return this Adapter, so the call can be chained
+     * @see IKeyable
+     * @see IVersionable
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setKeyedDiffEnabled(boolean enabled) {
+        log.i("Set keyedDiffEnabled=%s", enabled);
+        this.useKeyedDiff = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if the items are matched by key during the synchronization animations
+     * @see #setKeyedDiffEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isKeyedDiffEnabled() {
+        return useKeyedDiff;
+    }
+
+    /**
+     * Enables the adaptive diff when the number of new items exceeds the limit set with
+     * {@link #setAnimateToLimit(int)}: instead of calling {@link #notifyDataSetChanged()},
+     * only a window around the visible items, of the size of the limit, is synchronized with
+     * precise notifications. The items before and after the window are notified as ranges,
+     * without animations, so the scroll position and the visible items are preserved.
+     * <p>When the visible items are unknown or they all disappear from the new list, the
+     * adapter still calls {@link #notifyDataSetChanged()}.</p>
+     * Default value is {@code false}.
+     *
+     * @param enabled true to diff a window around the visible items over the limit, false
+     *                to call notifyDataSetChanged
+     * @return this Adapter, so the call can be chained
+     * @see #setAnimateToLimit(int)
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setAdaptiveDiffEnabled(boolean enabled) {
+        log.i("Set adaptiveDiffEnabled=%s", enabled);
+        this.useAdaptiveDiff = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if a window around the visible items is synchronized over the limit
+     * @see #setAdaptiveDiffEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isAdaptiveDiffEnabled() {
+        return useAdaptiveDiff;
+    }
+
+    /**
+     * Enables the parallel diff for lists with headers: when the old and the new list have the
+     * same headers in the same order, each section is synchronized separately on a pool of
+     * threads, one for each CPU core, and the notifications are stitched together.
+     * <p>Items moved to another section are notified as removed and inserted.</p>
+     * <b>Note:</b> The methods {@code equals}, {@code hashCode} and
+     * {@link IFlexible#shouldNotifyChange(IFlexible)} of the items are called concurrently.
+     * <p>Default value is {@code false}.</p>
+     *
+     * @param enabled true to synchronize the sections in parallel, false otherwise
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setParallelDiffEnabled(boolean enabled) {
+        log.i("Set parallelDiffEnabled=%s", enabled);
+        this.useParallelDiff = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if the sections are synchronized in parallel
+     * @see #setParallelDiffEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isParallelDiffEnabled() {
+        return useParallelDiff;
+    }
+
+    /**
+     * Enables the refinement of the filter: when the new filter is stricter than the previous
+     * one, as decided by {@link #isFilterRefinement(Serializable, Serializable)}, only the
+     * items collected by the previous filter are filtered again, instead of the entire
+     * unfiltered list. Typing more characters in a search view costs then as much as the
+     * previous results.
+     * <p>A full scan is performed when the filter is broadened or when the unfiltered list is
+     * different from the previous filter or has changed since then.</p>
+     * <b>Note:</b> The filter of the items must be consistent: an item rejected by a filter
+     * must be rejected by all its refinements.
+     * <p>Default value is {@code false}.</p>
+     *
+     * @param enabled true to filter only the previous results when possible, false to always
+     *                filter the entire list
+     * @return this Adapter, so the call can be chained
+     * @see #isFilterRefinement(Serializable, Serializable)
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setFilterRefinementEnabled(boolean enabled) {
+        log.i("Set filterRefinementEnabled=%s", enabled);
+        this.useFilterRefinement = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if a stricter filter is applied only to the previous results
+     * @see #setFilterRefinementEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isFilterRefinementEnabled() {
+        return useFilterRefinement;
+    }
+
+    /**
+     * Enables the trigram index of the items implementing {@link ISearchable}: a
+     * {@code String} filter collects these items when their searchable text contains the
+     * filter, answered by the index instead of calling the filter on every item.
+     * <p>The text of each item instance is read and lowercased once. The index follows the
+     * insertions and removals of the items, and indexes at the next filter the items not
+     * displayed yet, such as the subItems of collapsed expandables. When the list is replaced,
+     * the items no longer present are discarded.</p>
+     * <b>Note:</b> For these items, {@link #filterObject(IFlexible, Serializable)} and
+     * {@link IFilterable#filter(Serializable)} are not called.
+     * <p>Default value is {@code false}.</p>
+     *
+     * @param enabled true to create and maintain the index, false to discard it
+     * @return this Adapter, so the call can be chained
+     * @see ISearchable
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setSearchIndexEnabled(boolean enabled) {
+        log.i("Set searchIndexEnabled=%s", enabled);
+        if (enabled && mSearchIndex == null) {
+            mSearchIndex = new SearchIndex();
+        } else if (!enabled) {
+            mSearchIndex = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the search index is enabled, false otherwise
+     * @see #setSearchIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isSearchIndexEnabled() {
+        return mSearchIndex != null;
+    }
+
+    /**
+     * @return the number of items currently indexed, 0 if the index is not enabled
+     * @see #setSearchIndexEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final int getSearchIndexCount() {
+        SearchIndex searchIndex = mSearchIndex;
+        return searchIndex != null ? searchIndex.size() : 0;
+    }
+
+    /**
+     * Enables the parallel filter: on big lists, the filter of the items and of their subItems
+     * is computed in chunks on a pool of threads, one for each CPU core, before collecting
+     * the results in the original order. Headers, sections and expandables are resolved as
+     * usual, in sequence.
+     * <p><b>Tip:</b> Useful with CPU heavy filters, such as regular expressions and fuzzy
+     * matching.</p>
+     * <b>Note:</b> The methods {@link #filterObject(IFlexible, Serializable)} and
+     * {@link IFilterable#filter(Serializable)} are called concurrently.
+     * <p>Default value is {@code false}.</p>
+     *
+     * @param enabled true to filter the items in parallel, false otherwise
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setParallelFilterEnabled(boolean enabled) {
+        log.i("Set parallelFilterEnabled=%s", enabled);
+        this.useParallelFilter = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if the items are filtered in parallel
+     * @see #setParallelFilterEnabled(boolean)
+     * @since 5.1.0
+     */
+    public final boolean isParallelFilterEnabled() {
+        return useParallelFilter;
+    }
+
+    /**
+     * Sets the number of filters whose matched items are remembered, the least recently used
+     * being discarded: going back to a recent filter collects the items without calling the
+     * filter on them. The animations are computed as usual.
+     * <p>The cache is discarded when the data set changes: with {@link #updateDataSet(List)},
+     * with any item added, removed or updated, or when a different list is filtered with
+     * {@link #filterItems(List)}.</p>
+     * <b>Note:</b> The filter of the items must depend only on their content.
+     * <p>Default value is {@code 0} (disabled).</p>
+     *
+     * @param size the maximum number of filters to remember, 0 to disable the cache
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setFilterCacheSize(@IntRange(from = 0) final int size) {
+        log.i("Set filterCacheSize=%s", size);
+        if (size <= 0) {
+            mFilterCache = null;
+        } else {
+            mFilterCache = new LinkedHashMap<Serializable, FilterCacheEntry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Serializable, FilterCacheEntry> eldest) {
+                    return size() > size;
+                }
+            };
+        }
+        return this;
+    }
+
+    /**
+     * Enables the progressive filter for lists bigger than the limit of the animations: the
+     * first page of matches is displayed as soon as it is found, then the next matches are
+     * appended below, in batches of doubling size, while the scan continues in background.
+     * The time to display the results becomes the time to find the first page, instead of
+     * the time to scan the entire list.
+     * <p>The results are displayed with {@link #notifyDataSetChanged()} for the first page,
+     * then with range insertions. {@link #onPostFilter()} is called after the first page and
+     * after the last batch. A new filter discards the pending batches of the previous one.
+     * When less than a page is found, the results are animated as usual.</p>
+     * <p>Default value is {@code 0} (disabled).</p>
+     *
+     * @param pageSize the number of matches of the first page (a screenful), 0 to disable
+     * @return this Adapter, so the call can be chained
+     * @see #setAnimateToLimit(int)
+     * @since 5.1.0
+     */
+    public final FlexibleAdapter<T> setProgressiveFilterPageSize(@IntRange(from = 0) int pageSize) {
+        log.i("Set progressiveFilterPageSize=%s", pageSize);
+        this.mProgressivePageSize = Math.max(pageSize, 0);
+        return this;
+    }
+
+    /**
+     * @return the size of the first page of the progressive filter, 0 if disabled
+     * @see #setProgressiveFilterPageSize(int)
+     * @since 5.1.0
+     */
+    public final int getProgressiveFilterPageSize() {
+        return mProgressivePageSize;
+    }
+
+    /**
+     * @return the number of filters currently remembered
+     * @see #setFilterCacheSize(int)
+     * @since 5.1.0
+     */
+    public final int getFilterCacheCount() {
+        Map<Serializable, FilterCacheEntry> filterCache = mFilterCache;
+        if (filterCache == null) {
+            return 0;
+        }
+        synchronized (filterCache) {
+            return filterCache.size();
+        }
+    }
+
     /**
      * Filters the current list with the filter previously set with
      * {@link #setFilter(Serializable)}.
@@ -4086,6 +5196,9 @@ public class FlexibleAdapter<T extends IFlexible>
      * @since 5.0.0-b1
      */
     public void filterItems(@NonNull List<T> unfilteredItems, @IntRange(from = 0) long delay) {
+        if (unfilteredItems != mOriginalList) {
+            mDataSetVersion++; // Not the list of the previous filters
+        }
         // Make longer the timer for new coming deleted items
         mHandler.removeMessages(FILTER);
         mHandler.sendMessageDelayed(Message.obtain(mHandler, FILTER, unfilteredItems), delay > 0 ? delay : 0);
@@ -4130,24 +5243,92 @@ public class FlexibleAdapter<T extends IFlexible>
      * <br>5.0.0 Use of any filter object, instead of only String
      */
     public void filterItems(@NonNull List<T> unfilteredItems) {
+        if (unfilteredItems != mOriginalList) {
+            mDataSetVersion++; // Not the list of the previous filters
+        }
         mHandler.removeMessages(FILTER);
         mHandler.sendMessage(Message.obtain(mHandler, FILTER, unfilteredItems));
     }
 
-    private synchronized void filterItemsAsync(@NonNull List<T> unfilteredItems) {
+    private synchronized void filterItemsAsync(@NonNull List<T> unfilteredItems, @Nullable List<T> source) {
         log.d("filterItems with filterEntity=\"%s\"", mFilterEntity);
         List<T> filteredItems = new ArrayList<>();
         filtering = true; //Enable flag
 
         if (hasFilter() && hasNewFilter(mFilterEntity)) { //skip when filter is unchanged
-            for (T item : unfilteredItems) {
-                if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
-                    return;
+            List<T> candidates = unfilteredItems;
+            int version = mDataSetVersion;
+            if (canRefineFilter(source, version)) {
+                log.d("Refining %s candidates of the filter \"%s\"", mRefinementItems.size(), mRefinementFilter);
+                candidates = mRefinementItems;
+            }
+            // Candidates for the next refinement, headers are always kept
+            List<T> collectedItems = useFilterRefinement ? new ArrayList<T>() : null;
+            Map<Serializable, FilterCacheEntry> filterCache = mFilterCache;
+            if (filterCache != null) {
+                mCachedMatches = getCachedMatches(filterCache, version);
+                if (mCachedMatches == null) {
+                    mRecordedMatches = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+                }
+            }
+            SearchIndex searchIndex = mSearchIndex;
+            if (mCachedMatches == null && searchIndex != null && mFilterEntity instanceof String) {
+                // Atomic against the items discarded in the UI thread
+                synchronized (searchIndex) {
+                    addToSearchIndex(searchIndex, candidates);
+                    mSearchMatches = searchIndex.search((String) mFilterEntity);
+                }
+                log.d("Search index matches=%s indexed=%s", mSearchMatches.size(), searchIndex.size());
+            }
+            if (mCachedMatches == null && useParallelFilter) {
+                mPrecomputedMatches = precomputeMatches(candidates);
+                mPrecomputedCursor = 0;
+            }
+            // Progressive results, published when reaching the next size
+            FilterTask task = mRunningTask;
+            int published = 0, nextPublish = Integer.MAX_VALUE;
+            if (task != null && mProgressivePageSize > 0 && candidates.size() > mAnimateToLimit) {
+                nextPublish = mProgressivePageSize;
+            }
+            try {
+                for (T item : candidates) {
+                    if (isTaskCancelled()) {
+                        return;
+                    }
+                    // Filter normal AND expandable objects
+                    if (filterObject(item, filteredItems) || isHeader(item) || isScrollableHeaderOrFooter(item)) {
+                        if (collectedItems != null) {
+                            collectedItems.add(item);
+                        }
+                    }
+                    if (filteredItems.size() >= nextPublish) {
+                        publishFilterResults(task, new ArrayList<>(filteredItems.subList(published, filteredItems.size())), published == 0);
+                        published = filteredItems.size();
+                        nextPublish = published * 2;
+                    }
+                }
+                if (published > 0) {
+                    // The rest is appended at the end of the task
+                    task.progressiveTail = new ArrayList<>(filteredItems.subList(published, filteredItems.size()));
+                }
+                if (mRecordedMatches != null) {
+                    synchronized (filterCache) {
+                        filterCache.put(mFilterEntity, new FilterCacheEntry(mRecordedMatches, version));
+                    }
                 }
-                // Filter normal AND expandable objects
-                filterObject(item, filteredItems);
+            } finally {
+                mSearchMatches = null;
+                mPrecomputedItems = null;
+                mPrecomputedMatches = null;
+                mCachedMatches = null;
+                mRecordedMatches = null;
             }
+            mRefinementItems = collectedItems;
+            mRefinementFilter = mFilterEntity;
+            mRefinementSource = source;
+            mRefinementVersion = version;
         } else if (hasNewFilter(mFilterEntity)) {
+            mRefinementItems = null;
             filteredItems = unfilteredItems; //original items with no filter
             resetFilterFlags(filteredItems); //recursive reset
             mExpandedFilterFlags = null;
@@ -4155,18 +5336,65 @@ public class FlexibleAdapter<T extends IFlexible>
                 restoreScrollableHeadersAndFooters(filteredItems);
             }
             mOriginalList = null;
+            rearmAdoptedGuard(filteredItems);
         }
 
         // Animate search results only in case of new Filter
         if (hasNewFilter(mFilterEntity)) {
             mOldFilterEntity = mFilterEntity;
-            animateDiff(filteredItems, Payload.FILTER);
+            FilterTask task = mRunningTask;
+            if (task == null || task.progressiveTail == null) {
+                animateDiff(filteredItems, Payload.FILTER);
+            }
         }
 
         // Reset flag
         filtering = false;
     }
 
+    /**
+     * Displays a batch of results of the progressive filter in the UI thread, unless a newer
+     * task has been requested in the meantime.
+     *
+     * @param items     the results found after the previous batch
+     * @param firstPage true to replace the current items, false to append the results
+     * @see #setProgressiveFilterPageSize(int)
+     * @since 5.1.0
+     */
+    private void publishFilterResults(final FilterTask task, final List<T> items, final boolean firstPage) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (task.isCancelled()) {
+                    return;
+                }
+                if (firstPage) {
+                    log.d("Progressive filter first page=%s", items.size());
+                    // Same dispatch of the filter results above the limit of the animations
+                    List<Notification> notifications = new ArrayList<>(1);
+                    notifications.add(obtainNotification(0, -1, 0));
+                    applyNotifications(createItemList(items), notifications, Payload.FILTER);
+                    onPostFilter();
+                    measureTimeToFirstFrame();
+                } else {
+                    appendFilterResults(items);
+                }
+            }
+        });
+    }
+
+    private void appendFilterResults(List<T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        log.d("Progressive filter appending=%s", items.size());
+        int positionStart = mItems.size();
+        mItems.addAll(items);
+        // Results of the filter, the data set is unchanged
+        updateIndexesOnInsert(positionStart, items.size(), false);
+        notifyItemRangeInserted(positionStart, items.size());
+    }
+
     /**
      * @return true if the filter is currently running, false otherwise.
      */
@@ -4187,7 +5415,7 @@ public class FlexibleAdapter<T extends IFlexible>
      */
     private boolean filterObject(T item, List<T> values) {
         // Stop filter task if cancelled
-        if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
+        if (isTaskCancelled()) {
             return false;
         }
         // Skip already filtered items (it happens when internal originalList)
@@ -4202,7 +5430,7 @@ public class FlexibleAdapter<T extends IFlexible>
         boolean filtered = filterExpandableObject(item, filteredItems);
         // If no subItem was filtered, fallback to Normal filter
         if (!filtered) {
-            filtered = filterObject(item, getFilter(Serializable.class));
+            filtered = matchesFilter(item);
         }
         if (filtered) {
             // Check if header has to be added too
@@ -4236,7 +5464,7 @@ public class FlexibleAdapter<T extends IFlexible>
                     filtered = true;
                 } else {
                     // Use normal filter for normal subItem
-                    subItem.setHidden(!filterObject(subItem, getFilter(Serializable.class)));
+                    subItem.setHidden(!matchesFilter(subItem));
                     if (!subItem.isHidden()) {
                         filtered = true;
                         filteredItems.add(subItem);
@@ -4249,6 +5477,179 @@ public class FlexibleAdapter<T extends IFlexible>
         return filtered;
     }
 
+    /**
+     * Filters the item with the search index if available, otherwise with
+     * {@link #filterObject(IFlexible, Serializable)}.
+     */
+    private boolean matchesFilter(T item) {
+        if (mCachedMatches != null) {
+            return mCachedMatches.contains(item);
+        }
+        boolean matched = computeMatch(item);
+        if (matched && mRecordedMatches != null) {
+            mRecordedMatches.add(item);
+        }
+        return matched;
+    }
+
+    private boolean computeMatch(T item) {
+        Set<Object> searchMatches = mSearchMatches;
+        if (searchMatches != null && item instanceof ISearchable) {
+            return searchMatches.contains(item);
+        }
+        boolean[] precomputedMatches = mPrecomputedMatches;
+        if (precomputedMatches != null) {
+            // Items are requested in the flattened order, some can be skipped and a sub
+            // expandable not matched is requested twice in a row
+            List<T> flatItems = mPrecomputedItems;
+            for (int i = Math.max(mPrecomputedCursor - 1, 0); i < precomputedMatches.length; i++) {
+                if (flatItems.get(i) == item) {
+                    mPrecomputedCursor = i + 1;
+                    return precomputedMatches[i];
+                }
+            }
+        }
+        return filterObject(item, getFilter(Serializable.class));
+    }
+
+    /**
+     * The items not evaluated by a filter (refined) have been rejected by a broader filter,
+     * so only the matched items are remembered.
+     *
+     * @return the items matched by the current filter on the same data set, null if unknown
+     * @see #setFilterCacheSize(int)
+     * @since 5.1.0
+     */
+    @Nullable
+    private Set<Object> getCachedMatches(Map<Serializable, FilterCacheEntry> filterCache, int version) {
+        synchronized (filterCache) {
+            FilterCacheEntry entry = filterCache.get(mFilterEntity);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version != version) {
+                // Data set changed: all the entries are stale
+                filterCache.clear();
+                return null;
+            }
+            log.d("Filter cache hit for \"%s\" matches=%s", mFilterEntity, entry.matches.size());
+            return entry.matches;
+        }
+    }
+
+    /**
+     * Filters in parallel the items and their current subItems, in chunks.
+     *
+     * @return the result of the filter for each item of {@link #mPrecomputedItems}, null if
+     * the list is too small or the computation didn't complete
+     * @see #setParallelFilterEnabled(boolean)
+     * @since 5.1.0
+     */
+    @Nullable
+    private boolean[] precomputeMatches(List<T> items) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads < 2 || items.size() < PARALLEL_FILTER_THRESHOLD) {
+            return null;
+        }
+        final List<T> flatItems = new ArrayList<>(items.size());
+        addFilterableItems(flatItems, items);
+        mPrecomputedItems = flatItems;
+        final boolean[] matches = new boolean[flatItems.size()];
+        final Serializable constraint = getFilter(Serializable.class);
+        final Set<Object> searchMatches = mSearchMatches;
+        int chunks = threads * 4;
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int start = c * flatItems.size() / chunks;
+            final int end = (c + 1) * flatItems.size() / chunks;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = start; i < end && !isTaskCancelled(); i++) {
+                        T item = flatItems.get(i);
+                        // Already answered by the search index
+                        if (searchMatches == null || !(item instanceof ISearchable)) {
+                            matches[i] = filterObject(item, constraint);
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : getDiffExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+        if (isTaskCancelled()) {
+            return null;
+        }
+        log.d("precomputeMatches items=%s chunks=%s", flatItems.size(), chunks);
+        return matches;
+    }
+
+    /**
+     * Flattens the items with their current subItems, in the same order of the filter:
+     * the subItems are filtered before their parent.
+     */
+    private void addFilterableItems(List<T> flatItems, List<T> items) {
+        for (T item : items) {
+            if (isExpandable(item)) {
+                addFilterableItems(flatItems, getCurrentChildren((IExpandable) item));
+            }
+            flatItems.add(item);
+        }
+    }
+
+    /**
+     * Discards from the search index the items that are no longer in the list, the
+     * unfiltered list while a filter is active. Nothing is done if neither the list nor its
+     * version have changed since the last call.
+     */
+    private void retainSearchIndex() {
+        List<T> items = mOriginalList != null ? mOriginalList : mItems;
+        if (items == mSearchIndexItems && mDataSetVersion == mSearchIndexVersion) {
+            return;
+        }
+        mSearchIndexItems = items;
+        mSearchIndexVersion = mDataSetVersion;
+        Set<Object> liveItems = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        collectItems(liveItems, items);
+        mSearchIndex.retainAll(liveItems);
+    }
+
+    /**
+     * Collects the items and their subItems.
+     */
+    private void collectItems(Set<Object> into, List<T> items) {
+        for (T item : items) {
+            into.add(item);
+            if (isExpandable(item) && hasSubItems((IExpandable) item)) {
+                collectItems(into, ((IExpandable) item).getSubItems());
+            }
+        }
+    }
+
+    /**
+     * Indexes the items and their subItems not indexed yet.
+     */
+    private void addToSearchIndex(SearchIndex searchIndex, List<T> items) {
+        for (T item : items) {
+            if (item instanceof ISearchable) {
+                searchIndex.add((ISearchable) item);
+            }
+            if (isExpandable(item) && hasSubItems((IExpandable) item)) {
+                addToSearchIndex(searchIndex, ((IExpandable) item).getSubItems());
+            }
+        }
+    }
+
     /**
      * This method checks if the provided object is a type of {@link IFilterable} interface,
      * if yes, performs the filter on the implemented method {@link IFilterable#filter(Serializable)}.
@@ -4271,6 +5672,38 @@ public class FlexibleAdapter<T extends IFlexible>
         return item instanceof IFilterable && ((IFilterable) item).filter(constraint);
     }
 
+    /**
+     * Checks if the new filter is a refinement of the old one: every item collected by the
+     * new filter is also collected by the old filter. Used when the refinement is enabled.
+     * <p>By default, a {@code String} filter is a refinement of another {@code String} when
+     * it starts with it ("ab" &rarr; "abc"), consistently with filters matching text by
+     * {@code contains} or by {@code startsWith}. Override to support other filter objects or
+     * different matching logic, for instance {@code contains} for filters matching only by
+     * {@code contains}.</p>
+     *
+     * @param oldFilter the filter of the previous results
+     * @param newFilter the new filter
+     * @return true if the new filter can be applied to the previous results only
+     * @see #setFilterRefinementEnabled(boolean)
+     * @since 5.1.0
+     */
+    protected boolean isFilterRefinement(@NonNull Serializable oldFilter, @NonNull Serializable newFilter) {
+        return oldFilter instanceof String && newFilter instanceof String
+                && ((String) newFilter).startsWith((String) oldFilter);
+    }
+
+    /**
+     * @return true if the previous results come from the same unfiltered list, unchanged
+     * since then, and the new filter is stricter
+     */
+    private boolean canRefineFilter(List<T> source, int version) {
+        return useFilterRefinement && mRefinementItems != null
+                && source != null && source == mRefinementSource
+                && version == mRefinementVersion
+                && mRefinementFilter != null && mFilterEntity != null
+                && isFilterRefinement(mRefinementFilter, mFilterEntity);
+    }
+
     /**
      * Clears flags after filter is cleared out for Expandable items and sub items.
      * Also restore headers visibility.
@@ -4409,45 +5842,249 @@ public class FlexibleAdapter<T extends IFlexible>
      * <br>5.0.0-b8 Synchronization animation limit
      */
     private synchronized void animateTo(@Nullable List<T> newItems, Payload payloadChange) {
-        mNotifications = new ArrayList<>();
+        if (mDiffBuffer == null) {
+            mDiffBuffer = new NotificationBuffer();
+        }
+        NotificationBuffer buffer = mDiffBuffer;
+        buffer.reset();
         if (newItems != null && newItems.size() <= mAnimateToLimit) {
             log.d("Animate changes! oldSize=%s newSize=%s limit=%s", getItemCount(), newItems.size(), mAnimateToLimit);
-            mTempItems = new ArrayList<>(mItems);
-            applyAndAnimateRemovals(mTempItems, newItems);
-            applyAndAnimateAdditions(mTempItems, newItems);
-            if (notifyMoveOfFilteredItems) {
-                applyAndAnimateMovedItems(mTempItems, newItems);
-            }
+            mTempItems = createItemList(mItems);
+            applyAndAnimateDiff(buffer, mTempItems, newItems);
+        } else if (newItems != null && useAdaptiveDiff && animateWindow(buffer, newItems)) {
+            log.d("Animated changes in window! oldSize=%s newSize=%s limit=%s", getItemCount(), newItems.size(), mAnimateToLimit);
         } else {
             log.d("NotifyDataSetChanged! oldSize=%s newSize=%s limit=%s", getItemCount(), (newItems != null ? newItems.size() : "0"), mAnimateToLimit);
-            mTempItems = newItems;
-            mNotifications.add(new Notification(-1, 0));
+            mTempItems = adoptItemList(newItems);
+            buffer.add(0, -1, 0);
         }
+        mNotifications = buffer.notifications;
+        notificationsCount = buffer.count;
         // Execute All notifications if filter was Synchronous!
-        if (mFilterAsyncTask == null) {
+        if (mRunningTask == null) {
             executeNotifications(payloadChange);
         }
     }
 
+    private void applyAndAnimateDiff(NotificationBuffer buffer, List<T> from, List<T> newItems) {
+        if (!useParallelDiff || !applyAndAnimatePartitionedDiff(buffer, from, newItems)) {
+            applyAndAnimateSectionDiff(buffer, from, newItems);
+        }
+    }
+
+    private void applyAndAnimateSectionDiff(NotificationBuffer buffer, List<T> from, List<T> newItems) {
+        if (!useKeyedDiff || !applyAndAnimateKeyedDiff(buffer, from, newItems)) {
+            applyAndAnimateRemovals(buffer, from, newItems);
+            applyAndAnimateAdditions(buffer, from, newItems);
+            if (notifyMoveOfFilteredItems) {
+                applyAndAnimateMovedItems(buffer, from, newItems);
+            }
+        }
+    }
+
     /**
-     * Calculates the modifications for items to rebound.
+     * Parallel diff: the lists are partitioned by header, the items before the first header
+     * being the first partition. The partitions are grouped in contiguous batches, one task
+     * for each batch; the notifications of a batch are positioned on the old list and the
+     * batches are stitched in descending order, so each one finds the previous positions
+     * untouched.
      *
-     * @return A Map with the unfilteredItems items to rebound and their index
-     * @since 5.0.0-rc1
+     * @return false if the lists have different sections or are too small, nothing is changed
+     * @see #setParallelDiffEnabled(boolean)
+     * @since 5.1.0
      */
-    @Nullable
-    private Map<T, Integer> applyModifications(List<T> from, List<T> newItems) {
-        if (notifyChangeOfUnfilteredItems) {
-            // Using Hash for performance
-            mHashItems = new HashSet<>(from);
-            Map<T, Integer> unfilteredItems = new HashMap<>();
-            for (int i = 0; i < newItems.size(); i++) {
-                if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
-                    break;
+    private boolean applyAndAnimatePartitionedDiff(final NotificationBuffer buffer,
+                                                   List<T> from, List<T> newItems) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads < 2 || from.size() + newItems.size() < PARALLEL_DIFF_THRESHOLD) {
+            return false;
+        }
+        // Read-only copies, shared by the threads
+        final List<T> oldList = new ArrayList<>(from);
+        final List<T> newList = new ArrayList<>(newItems);
+        final int[] oldStarts = getSectionStarts(oldList);
+        final int[] newStarts = getSectionStarts(newList);
+        final int partitions = oldStarts.length;
+        if (partitions < 3 || partitions != newStarts.length) {
+            return false;
+        }
+        for (int k = 1; k < partitions; k++) {
+            if (!oldList.get(oldStarts[k]).equals(newList.get(newStarts[k]))) {
+                return false;
+            }
+        }
+        int batches = Math.min(partitions, threads * 2);
+        while (mBatchBuffers.size() < batches) {
+            mBatchBuffers.add(new NotificationBuffer());
+        }
+        final Object[] results = new Object[partitions];
+        List<Callable<Void>> tasks = new ArrayList<>(batches);
+        for (int b = 0; b < batches; b++) {
+            final NotificationBuffer batchBuffer = mBatchBuffers.get(b);
+            batchBuffer.reset();
+            final int firstPartition = b * partitions / batches;
+            final int lastPartition = (b + 1) * partitions / batches - 1;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int k = lastPartition; k >= firstPartition && !isTaskCancelled(); k--) {
+                        int oldEnd = k + 1 < partitions ? oldStarts[k + 1] : oldList.size();
+                        int newEnd = k + 1 < partitions ? newStarts[k + 1] : newList.size();
+                        List<T> section = new ArrayList<>(oldList.subList(oldStarts[k], oldEnd));
+                        batchBuffer.offset = buffer.offset + oldStarts[k];
+                        applyAndAnimateSectionDiff(batchBuffer, section, newList.subList(newStarts[k], newEnd));
+                        results[k] = section;
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : getDiffExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+        if (isTaskCancelled()) {
+            return true;
+        }
+        // Stitch the notifications and the sections
+        for (int b = batches - 1; b >= 0; b--) {
+            buffer.notifications.addAll(mBatchBuffers.get(b).notifications);
+            buffer.count += mBatchBuffers.get(b).count;
+        }
+        from.clear();
+        for (Object section : results) {
+            from.addAll((List<T>) section);
+        }
+        log.d("calculatePartitionedDiff sections=%s batches=%s", partitions, batches);
+        return true;
+    }
+
+    /**
+     * @return the start of each section: 0 for the items before the first header, then the
+     * position of each header
+     */
+    private int[] getSectionStarts(List<T> items) {
+        int count = 1;
+        for (T item : items) {
+            if (isHeader(item)) count++;
+        }
+        int[] starts = new int[count];
+        for (int i = 0, k = 1; i < items.size(); i++) {
+            if (isHeader(items.get(i))) {
+                starts[k++] = i;
+            }
+        }
+        return starts;
+    }
+
+    private static ExecutorService getDiffExecutor() {
+        synchronized (FlexibleAdapter.class) {
+            if (sDiffExecutor == null) {
+                sDiffExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                        new ThreadFactory() {
+                            private int count = 0;
+
+                            @Override
+                            public Thread newThread(@NonNull Runnable runnable) {
+                                Thread thread = new Thread(runnable, "FlexibleAdapter-Diff-" + (++count));
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+            return sDiffExecutor;
+        }
+    }
+
+    /**
+     * Remembers the visible range for the adaptive diff, must be called in the UI thread.
+     */
+    private void captureVisibleRange() {
+        mVisibleFirst = mVisibleLast = RecyclerView.NO_POSITION;
+        if (useAdaptiveDiff && mRecyclerView != null && getFlexibleLayoutManager() != null) {
+            mVisibleFirst = getFlexibleLayoutManager().findFirstVisibleItemPosition();
+            mVisibleLast = getFlexibleLayoutManager().findLastVisibleItemPosition();
+        }
+    }
+
+    /**
+     * Adaptive diff: synchronizes with precise notifications only a window of the size of the
+     * limit around the visible items. The old window is located in the new list by its
+     * surviving items; before and after the window, the old and new items are notified as
+     * changed ranges plus the difference of size as inserted or removed range.
+     * <p>Notifications are in descending order of position: after the window, the window,
+     * before the window.</p>
+     *
+     * @return false if the window cannot be located, nothing is changed
+     * @see #setAdaptiveDiffEnabled(boolean)
+     * @since 5.1.0
+     */
+    private boolean animateWindow(NotificationBuffer buffer, List<T> newItems) {
+        if (mRunningTask == null) {
+            captureVisibleRange(); // Synchronous call
+        }
+        List<T> oldItems = mItems;
+        int oldSize = oldItems.size(), newSize = newItems.size();
+        int first = mVisibleFirst, last = Math.min(mVisibleLast, oldSize - 1);
+        if (first < 0 || last < first) {
+            return false;
+        }
+        int margin = Math.max(0, (mAnimateToLimit - (last - first + 1)) / 2);
+        int oldStart = Math.max(0, first - margin), oldEnd = Math.min(oldSize, last + 1 + margin);
+        // Locate the window in the new list
+        Set<T> window = new HashSet<>(oldItems.subList(oldStart, oldEnd));
+        int newStart = -1, newEnd = -1;
+        for (int i = 0; i < newSize; i++) {
+            if (window.contains(newItems.get(i))) {
+                if (newStart < 0) newStart = i;
+                newEnd = i + 1;
+            }
+        }
+        if (newStart < 0 || newEnd - newStart > 2 * mAnimateToLimit || isTaskCancelled()) {
+            return false;
+        }
+        log.d("animateWindow old=[%s, %s) new=[%s, %s)", oldStart, oldEnd, newStart, newEnd);
+        buffer.addRanges(oldEnd, oldSize - oldEnd, newSize - newEnd);
+        List<T> windowItems = new ArrayList<>(oldItems.subList(oldStart, oldEnd));
+        buffer.offset = oldStart;
+        applyAndAnimateDiff(buffer, windowItems, newItems.subList(newStart, newEnd));
+        buffer.offset = 0;
+        buffer.addRanges(0, oldStart, newStart);
+        // New items outside the window, synchronized items inside
+        List<T> items = new ArrayList<>(newSize - (newEnd - newStart) + windowItems.size());
+        items.addAll(newItems.subList(0, newStart));
+        items.addAll(windowItems);
+        items.addAll(newItems.subList(newEnd, newSize));
+        mTempItems = adoptItemList(items);
+        return true;
+    }
+
+    /**
+     * Calculates the modifications for items to rebound.
+     *
+     * @return A Map with the unfilteredItems items to rebound and their index
+     * @since 5.0.0-rc1
+     */
+    @Nullable
+    private Map<T, Integer> applyModifications(List<T> from, List<T> newItems) {
+        if (notifyChangeOfUnfilteredItems) {
+            // Using Hash for performance
+            Set<T> hashItems = new HashSet<>(from);
+            Map<T, Integer> unfilteredItems = new HashMap<>();
+            for (int i = 0; i < newItems.size(); i++) {
+                if (isTaskCancelled()) {
+                    break;
                 }
                 final T item = newItems.get(i);
                 // Save the index of this new item
-                if (mHashItems.contains(item)) {
+                if (hashItems.contains(item)) {
                     unfilteredItems.put(item, i);
                 }
             }
@@ -4461,22 +6098,22 @@ public class FlexibleAdapter<T extends IFlexible>
      *
      * @since 5.0.0-b1
      */
-    private void applyAndAnimateRemovals(List<T> from, List<T> newItems) {
+    private void applyAndAnimateRemovals(NotificationBuffer buffer, List<T> from, List<T> newItems) {
         // This avoids the call indexOf() later on: newItems.get(unfilteredItems.indexOf(item)));
         Map<T, Integer> unfilteredItems = applyModifications(from, newItems);
 
         // Using Hash for performance
-        mHashItems = new HashSet<>(newItems);
+        Set<T> hashItems = new HashSet<>(newItems);
         int out = 0, mod = 0;
         for (int i = from.size() - 1; i >= 0; i--) {
-            if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
+            if (isTaskCancelled()) {
                 return;
             }
             final T item = from.get(i);
-            if (!mHashItems.contains(item)) {
+            if (!hashItems.contains(item)) {
                 log.v("calculateRemovals remove position=%s item=%s", i, item);
                 from.remove(i);
-                mNotifications.add(new Notification(i, Notification.REMOVE));
+                buffer.add(0, i, Notification.REMOVE);
                 out++;
             } else if (notifyChangeOfUnfilteredItems && unfilteredItems != null) {
                 T newItem = newItems.get(unfilteredItems.get(item));
@@ -4484,12 +6121,11 @@ public class FlexibleAdapter<T extends IFlexible>
                 // Always true in case filter is active
                 if (isFiltering() || item.shouldNotifyChange(newItem)) {
                     from.set(i, newItem);
-                    mNotifications.add(new Notification(i, Notification.CHANGE));
+                    buffer.add(0, i, Notification.CHANGE);
                     mod++;
                 }
             }
         }
-        mHashItems = null;
         log.d("calculateModifications total mod=%s", mod);
         log.d("calculateRemovals total out=%s", out);
     }
@@ -4499,47 +6135,212 @@ public class FlexibleAdapter<T extends IFlexible>
      *
      * @since 5.0.0-b1
      */
-    private void applyAndAnimateAdditions(List<T> from, List<T> newItems) {
+    private void applyAndAnimateAdditions(NotificationBuffer buffer, List<T> from, List<T> newItems) {
         // Using Hash for performance
-        mHashItems = new HashSet<>(from);
+        Set<T> hashItems = new HashSet<>(from);
         int in = 0;
         for (int position = 0; position < newItems.size(); position++) {
-            if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
+            if (isTaskCancelled()) {
                 return;
             }
             final T item = newItems.get(position);
-            if (!mHashItems.contains(item)) {
+            if (!hashItems.contains(item)) {
                 log.v("calculateAdditions add position=%s item=%s", position, item);
-                if (notifyMoveOfFilteredItems) {
-                    // We add always at the end to animate moved items at the missing position
-                    from.add(item);
-                    mNotifications.add(new Notification(from.size(), Notification.ADD));
-                } else {
-                    // #328 - Filtering issue during delete search query (make sure position is in bounds)
-                    if (position < from.size()) {
-                        from.add(position, item);
-                    } else {
-                        from.add(item);
-                    }
-                    mNotifications.add(new Notification(position, Notification.ADD));
-                }
+                applyAddition(buffer, from, position, item);
                 in++;
             }
         }
-        mHashItems = null;
         log.d("calculateAdditions total new=%s", in);
     }
 
     /**
-     * Find out all moved items and animate them.
-     * <p>This method is very slow on list bigger than ~3000 items. Use with caution!</p>
+     * Adds a new item to the list under diff and notifies its insertion.
+     * <p>When moves are notified, the item is appended and notified at the last index (not
+     * at the new size, which is out of bounds), the moves will bring it to its position.</p>
      *
-     * @since 5.0.0-b7
+     * @param position the position of the item in the new list
+     * @since 5.1.0
      */
-    private void applyAndAnimateMovedItems(List<T> from, List<T> newItems) {
+    private void applyAddition(NotificationBuffer buffer, List<T> from, int position, T item) {
+        if (notifyMoveOfFilteredItems) {
+            // We add always at the end to animate moved items at the missing position
+            from.add(item);
+            buffer.add(0, from.size() - 1, Notification.ADD);
+        } else {
+            // #328 - Filtering issue during delete search query (make sure position is in bounds)
+            if (position < from.size()) {
+                from.add(position, item);
+            } else {
+                from.add(item);
+            }
+            buffer.add(0, position, Notification.ADD);
+        }
+    }
+
+    /**
+     * Find out the minimal set of moved items and animate them.
+     * <p>The target position of each item comes from an index map, the items of a longest
+     * increasing subsequence of the target positions don't move, see {@link MoveDetector}.</p>
+     *
+     * @since 5.0.0-b7 Created
+     * <br>5.1.0 Minimal moves in O(n log n)
+     */
+    private void applyAndAnimateMovedItems(NotificationBuffer buffer, List<T> from, List<T> newItems) {
+        int size = newItems.size();
+        Map<T, Integer> targetPositions = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            targetPositions.put(newItems.get(i), i);
+        }
+        // Duplicated items don't have a unique target position
+        if (targetPositions.size() != size || from.size() != size) {
+            log.w("calculateMovedItems duplicated items, scanning the list");
+            applyAndAnimateMovedItemsByScan(buffer, from, newItems);
+            return;
+        }
+        int[] targets = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer target = targetPositions.get(from.get(i));
+            if (target == null) {
+                applyAndAnimateMovedItemsByScan(buffer, from, newItems);
+                return;
+            }
+            targets[i] = target;
+        }
+        if (!applyAndAnimateMoves(buffer, from, targets)) {
+            applyAndAnimateMovedItemsByScan(buffer, from, newItems);
+        }
+    }
+
+    /**
+     * Moves the items to their target positions with the minimal set of moves.
+     *
+     * @param targets the target position of each item of {@code from}
+     * @return false if the targets are not a permutation, nothing is changed
+     */
+    private boolean applyAndAnimateMoves(NotificationBuffer buffer, List<T> from, int[] targets) {
+        int size = targets.length;
+        Object[] movedItems = new Object[size];
+        for (int i = 0; i < size; i++) {
+            if (movedItems[targets[i]] != null) {
+                return false;
+            }
+            movedItems[targets[i]] = from.get(i);
+        }
+        if (isTaskCancelled()) {
+            return true;
+        }
+        int[] moves = MoveDetector.detectMoves(targets);
+        for (int i = 0; i < moves.length; i += 2) {
+            buffer.add(moves[i], moves[i + 1], Notification.MOVE);
+        }
+        // Keep the current instances, now in the new order
+        from.clear();
+        for (Object item : movedItems) {
+            from.add((T) item);
+        }
+        log.d("calculateMovedItems total move=%s", moves.length / 2);
+        return true;
+    }
+
+    /**
+     * Keyed diff: removals, modifications, additions and moves with the items matched by
+     * {@link IKeyable#getItemKey()} in primitive maps.
+     *
+     * @return false if the items are not all keyable with unique keys, nothing is changed
+     * @see #setKeyedDiffEnabled(boolean)
+     * @since 5.1.0
+     */
+    private boolean applyAndAnimateKeyedDiff(NotificationBuffer buffer, List<T> from, List<T> newItems) {
+        if (buffer.newKeys == null) {
+            buffer.newKeys = new LongIntHashMap();
+            buffer.oldKeys = new LongIntHashMap();
+        }
+        LongIntHashMap newKeys = buffer.newKeys, oldKeys = buffer.oldKeys;
+        newKeys.clear();
+        oldKeys.clear();
+        int size = newItems.size();
+        for (int i = 0; i < size; i++) {
+            T item = newItems.get(i);
+            if (!(item instanceof IKeyable) || newKeys.put(((IKeyable) item).getItemKey(), i) != LongIntHashMap.NO_VALUE) {
+                log.w("Keyed diff not applicable, new item without unique key %s", item);
+                return false;
+            }
+        }
+        for (int i = 0; i < from.size(); i++) {
+            T item = from.get(i);
+            if (!(item instanceof IKeyable) || oldKeys.put(((IKeyable) item).getItemKey(), i) != LongIntHashMap.NO_VALUE) {
+                log.w("Keyed diff not applicable, item without unique key %s", item);
+                return false;
+            }
+        }
+        // Removals and modifications
+        int out = 0, mod = 0;
+        for (int i = from.size() - 1; i >= 0; i--) {
+            if (isTaskCancelled()) {
+                return true;
+            }
+            final T item = from.get(i);
+            int newPosition = newKeys.get(((IKeyable) item).getItemKey());
+            if (newPosition == LongIntHashMap.NO_VALUE) {
+                log.v("calculateRemovals remove position=%s item=%s", i, item);
+                from.remove(i);
+                buffer.add(0, i, Notification.REMOVE);
+                out++;
+            } else if (notifyChangeOfUnfilteredItems) {
+                T newItem = newItems.get(newPosition);
+                if (isFiltering() || shouldNotifyChange(item, newItem)) {
+                    from.set(i, newItem);
+                    buffer.add(0, i, Notification.CHANGE);
+                    mod++;
+                }
+            }
+        }
+        log.d("calculateModifications total mod=%s", mod);
+        log.d("calculateRemovals total out=%s", out);
+        // Additions
+        int in = 0;
+        for (int position = 0; position < size; position++) {
+            if (isTaskCancelled()) {
+                return true;
+            }
+            final T item = newItems.get(position);
+            if (oldKeys.get(((IKeyable) item).getItemKey()) == LongIntHashMap.NO_VALUE) {
+                log.v("calculateAdditions add position=%s item=%s", position, item);
+                applyAddition(buffer, from, position, item);
+                in++;
+            }
+        }
+        log.d("calculateAdditions total new=%s", in);
+        // Moves
+        if (notifyMoveOfFilteredItems) {
+            int[] targets = new int[from.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = newKeys.get(((IKeyable) from.get(i)).getItemKey());
+            }
+            applyAndAnimateMoves(buffer, from, targets);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the versions differ when both items are versionable, otherwise the
+     * result of {@link IFlexible#shouldNotifyChange(IFlexible)}
+     */
+    private boolean shouldNotifyChange(T item, T newItem) {
+        if (item instanceof IVersionable && newItem instanceof IVersionable) {
+            return ((IVersionable) item).getContentVersion() != ((IVersionable) newItem).getContentVersion();
+        }
+        return item.shouldNotifyChange(newItem);
+    }
+
+    /**
+     * Find out all moved items scanning the list, used when items are duplicated.
+     * <p>This method is very slow on list bigger than ~3000 items.</p>
+     */
+    private void applyAndAnimateMovedItemsByScan(NotificationBuffer buffer, List<T> from, List<T> newItems) {
         int move = 0;
         for (int toPosition = newItems.size() - 1; toPosition >= 0; toPosition--) {
-            if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) {
+            if (isTaskCancelled()) {
                 return;
             }
             final T item = newItems.get(toPosition);
@@ -4552,51 +6353,86 @@ public class FlexibleAdapter<T extends IFlexible>
                 } else {
                     from.add(movedItem);
                 }
-                mNotifications.add(new Notification(fromPosition, toPosition, Notification.MOVE));
+                buffer.add(fromPosition, toPosition, Notification.MOVE);
                 move++;
             }
         }
         log.d("calculateMovedItems total move=%s", move);
     }
 
+    private Notification obtainNotification(int fromPosition, int position, int operation) {
+        synchronized (mNotificationPool) {
+            if (!mNotificationPool.isEmpty()) {
+                Notification notification = mNotificationPool.remove(mNotificationPool.size() - 1);
+                notification.set(fromPosition, position, operation);
+                return notification;
+            }
+        }
+        return new Notification(fromPosition, position, operation);
+    }
+
     private synchronized void executeNotifications(Payload payloadChange) {
         if (diffResult != null) {
             log.i("Dispatching notifications");
-            mItems = diffUtilCallback.getNewItems(); // Update mItems in the UI Thread
+            mItems = adoptItemList(diffUtilCallback.getNewItems()); // Update mItems in the UI Thread
+            resetIndexes();
             diffResult.dispatchUpdatesTo(this);
             diffResult = null;
         } else {
-            log.i("Performing %s notifications", mNotifications.size());
-            mItems = mTempItems;     // Update mItems in the UI Thread
-            setScrollAnimate(false); // Disable scroll animation
-            for (Notification notification : mNotifications) {
-                switch (notification.operation) {
-                    case Notification.ADD:
-                        notifyItemInserted(notification.position);
-                        break;
-                    case Notification.CHANGE:
-                        notifyItemChanged(notification.position, payloadChange);
-                        break;
-                    case Notification.REMOVE:
-                        notifyItemRemoved(notification.position);
-                        break;
-                    case Notification.MOVE:
-                        notifyItemMoved(notification.fromPosition, notification.position);
-                        break;
-                    default:
-                        log.w("notifyDataSetChanged!");
-                        notifyDataSetChanged();
-                        break;
-                }
-            }
+            dispatchedNotificationsCount = mNotifications.size();
+            log.i("Performing %s notifications (%s before coalescing)", dispatchedNotificationsCount, notificationsCount);
+            applyNotifications(mTempItems, mNotifications, payloadChange);
             mTempItems = null;
             mNotifications = null;
-            setScrollAnimate(true);
         }
         time = System.currentTimeMillis() - start;
         log.i("Animate changes DONE in %sms", time);
     }
 
+    /**
+     * Replaces the internal list in the UI Thread and dispatches the notifications computed
+     * for it.
+     */
+    private void applyNotifications(List<T> newItems, List<Notification> notifications, Payload payloadChange) {
+        mItems = newItems; // Update mItems in the UI Thread
+        resetIndexes();
+        dispatchNotifications(notifications, payloadChange);
+    }
+
+    /**
+     * Dispatches the notifications in sequence and recycles them.
+     */
+    private void dispatchNotifications(List<Notification> notifications, Payload payloadChange) {
+        setScrollAnimate(false); // Disable scroll animation
+        for (Notification notification : notifications) {
+            switch (notification.operation) {
+                case Notification.ADD:
+                    notifyItemRangeInserted(notification.position, notification.itemCount);
+                    break;
+                case Notification.CHANGE:
+                    notifyItemRangeChanged(notification.position, notification.itemCount, payloadChange);
+                    break;
+                case Notification.REMOVE:
+                    notifyItemRangeRemoved(notification.position, notification.itemCount);
+                    break;
+                case Notification.MOVE:
+                    notifyItemMoved(notification.fromPosition, notification.position);
+                    break;
+                default:
+                    log.w("notifyDataSetChanged!");
+                    notifyDataSetChanged();
+                    break;
+            }
+        }
+        // Keep the notifications for the next operation
+        synchronized (mNotificationPool) {
+            for (int i = 0; i < notifications.size() && mNotificationPool.size() < NOTIFICATION_POOL_SIZE; i++) {
+                mNotificationPool.add(notifications.get(i));
+            }
+        }
+        setScrollAnimate(true);
+    }
+
     /**
      * @return the time (in ms) of the last update or filter operation.
      */
@@ -4604,6 +6440,213 @@ public class FlexibleAdapter<T extends IFlexible>
         return time;
     }
 
+    /**
+     * @return the number of single item notifications computed by the last update or filter
+     * operation, before the coalescing in ranges.
+     * @see #getDispatchedNotificationsCount()
+     * @since 5.1.0
+     */
+    public int getNotificationsCount() {
+        return notificationsCount;
+    }
+
+    /**
+     * @return the number of notifications dispatched to the observers by the last update or
+     * filter operation, after the coalescing in ranges.
+     * @see #getNotificationsCount()
+     * @since 5.1.0
+     */
+    public int getDispatchedNotificationsCount() {
+        return dispatchedNotificationsCount;
+    }
+
+    /**
+     * @return the time (in ms) from the request of the last asynchronous update or filter
+     * operation, to the first frame drawn with its result; 0 if not yet drawn.
+     * @since 5.1.0
+     */
+    public long getTimeToFirstFrame() {
+        return timeToFirstFrame;
+    }
+
+    /**
+     * Enables the latest-wins coalescing of the animated {@link #updateDataSet(List, boolean)}:
+     * the running computation is not cancelled by a new call, it completes and dispatches its
+     * result; meanwhile only the latest data set is kept, the intermediate ones are skipped.
+     * <p>Useful when the data sets arrive faster than the diff can be computed: without
+     * coalescing each call cancels the previous computation and, under sustained load, no
+     * result is ever displayed.</p>
+     * Default value is {@code false} (each call cancels the running computation).
+     *
+     * @param enabled true to coalesce the updates, false to cancel the running one
+     * @return this Adapter, so the call can be chained
+     * @see #setMinDispatchInterval(long)
+     * @see #getDroppedUpdatesCount()
+     * @since 5.1.0
+     */
+    public FlexibleAdapter<T> setUpdateCoalescingEnabled(boolean enabled) {
+        log.i("Set updateCoalescingEnabled=%s", enabled);
+        this.coalesceUpdates = enabled;
+        return this;
+    }
+
+    /**
+     * @return true if the animated updates are coalesced, false otherwise
+     * @see #setUpdateCoalescingEnabled(boolean)
+     * @since 5.1.0
+     */
+    public boolean isUpdateCoalescingEnabled() {
+        return coalesceUpdates;
+    }
+
+    /**
+     * When the updates are coalesced, sets the minimum time between two dispatched results:
+     * the next computation doesn't start before this interval is elapsed from the last dispatch.
+     * <p>Default value is {@code 0} (the next computation starts as soon as possible).</p>
+     *
+     * @param interval the minimum interval in milliseconds
+     * @return this Adapter, so the call can be chained
+     * @see #setUpdateCoalescingEnabled(boolean)
+     * @since 5.1.0
+     */
+    public FlexibleAdapter<T> setMinDispatchInterval(@IntRange(from = 0) long interval) {
+        log.i("Set minDispatchInterval=%s", interval);
+        this.minDispatchInterval = Math.max(interval, 0L);
+        return this;
+    }
+
+    /**
+     * @return the number of data sets skipped by the coalescing, since the Adapter creation
+     * @see #setUpdateCoalescingEnabled(boolean)
+     * @since 5.1.0
+     */
+    public int getDroppedUpdatesCount() {
+        return droppedUpdates;
+    }
+
+    /**
+     * Keeps only the latest data set and schedules its computation.
+     */
+    private void coalesceUpdate(int what, @NonNull List<T> items) {
+        if (mPendingItems != null) {
+            droppedUpdates++;
+            log.v("Coalesced update, dropped=%s", droppedUpdates);
+        }
+        mPendingItems = items;
+        mPendingWhat = what;
+        scheduleDispatchPending();
+    }
+
+    /**
+     * Schedules the pending data set, if any, respecting the minimum dispatch interval. When a
+     * computation is in progress, the pending data set is scheduled at its completion.
+     */
+    private void scheduleDispatchPending() {
+        if (mPendingItems == null || mInFlightTask != null || mHandler.hasMessages(DISPATCH_PENDING)) {
+            return;
+        }
+        long delay = lastDispatchTime + minDispatchInterval - System.currentTimeMillis();
+        mHandler.sendEmptyMessageDelayed(DISPATCH_PENDING, Math.max(delay, 0L));
+    }
+
+    /**
+     * Starts the background computation of a new task in the UI thread.
+     */
+    private void submitTask(int what, @Nullable List<T> items) {
+        // A new generation makes stale the previous task, if any
+        FilterTask task = new FilterTask(what, items, ++mGeneration);
+        if (!task.onPreExecute()) {
+            return;
+        }
+        mInFlightTask = task;
+        captureVisibleRange();
+        requestTime = System.currentTimeMillis();
+        getBackgroundExecutor().execute(task);
+    }
+
+    /**
+     * Sets the Executor where the asynchronous {@link #updateDataSet(List, boolean)} and
+     * {@link #filterItems(List)} are computed, for instance an Executor shared with the
+     * other background work of the app.
+     * <p>Default value is a serial Executor of this Adapter, running on a thread pool shared
+     * by the Adapters: the computations of different Adapters run in parallel, a long
+     * computation doesn't delay the other Adapters.</p>
+     * <b>Note:</b> A new request makes the running computation stale: it stops at the next
+     * check and its result is discarded. The computations of the same Adapter never run in
+     * parallel, even with a multi-thread Executor: with a single thread Executor shared by
+     * several Adapters, their computations wait for each other.
+     *
+     * @param executor the Executor for the background computations, null for the default
+     * @return this Adapter, so the call can be chained
+     * @since 5.1.0
+     */
+    public FlexibleAdapter<T> setBackgroundExecutor(@Nullable Executor executor) {
+        log.i("Set backgroundExecutor=%s", executor != null ? getClassName(executor) : null);
+        mBackgroundExecutor = executor;
+        return this;
+    }
+
+    /**
+     * @return the Executor of the background computations, the default one if not set
+     * @see #setBackgroundExecutor(Executor)
+     * @since 5.1.0
+     */
+    @NonNull
+    public Executor getBackgroundExecutor() {
+        if (mBackgroundExecutor != null) {
+            return mBackgroundExecutor;
+        }
+        if (mDefaultExecutor == null) {
+            synchronized (FlexibleAdapter.class) {
+                if (sDefaultExecutor == null) {
+                    sDefaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                        private int count = 0;
+
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "FlexibleAdapter-Background-" + (++count));
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+            mDefaultExecutor = new SerialExecutor(sDefaultExecutor);
+        }
+        return mDefaultExecutor;
+    }
+
+    /**
+     * @return true if the computation running in this thread has been superseded by a newer
+     * request, false otherwise (or if not running in background)
+     */
+    private boolean isTaskCancelled() {
+        FilterTask task = mRunningTask;
+        return task != null && task.isCancelled();
+    }
+
+    /**
+     * Measures the time to the first frame drawn after the notifications of a background task.
+     */
+    private void measureTimeToFirstFrame() {
+        timeToFirstFrame = 0;
+        if (mRecyclerView == null) return;
+        final ViewTreeObserver observer = mRecyclerView.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                timeToFirstFrame = System.currentTimeMillis() - requestTime;
+                log.i("Time to first frame %sms", timeToFirstFrame);
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                } else {
+                    mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                }
+                return true;
+            }
+        });
+    }
+
     /*---------------*/
     /* TOUCH METHODS */
     /*---------------*/
@@ -4789,8 +6832,8 @@ public class FlexibleAdapter<T extends IFlexible>
      */
     public void moveItem(int fromPosition, int toPosition, @Nullable Object payload) {
         log.v("moveItem fromPosition=%s toPosition=%s", fromPosition, toPosition);
-        // Preserve selection
-        if ((isSelected(fromPosition))) {
+        // Preserve selection (by key, it follows the item)
+        if (!isSelectionKeyed() && isSelected(fromPosition)) {
             removeSelection(fromPosition);
             addSelection(toPosition);
         }
@@ -4802,6 +6845,7 @@ public class FlexibleAdapter<T extends IFlexible>
         }
         // Move item!
         mItems.remove(fromPosition);
+        updateIndexesOnRemove(fromPosition, 1, Collections.singletonList(item), true);
         performInsert(toPosition, Collections.singletonList(item), false);
         notifyItemMoved(fromPosition, toPosition);
         if (payload != null) {
@@ -4843,12 +6887,20 @@ public class FlexibleAdapter<T extends IFlexible>
             for (int i = fromPosition; i < toPosition; i++) {
                 log.v("swapItems from=%s to=%s", i, (i + 1));
                 Collections.swap(list, i, i + 1);
+                if (list == mItems) {
+                    updateIndexesOnChange(i, null);
+                    updateIndexesOnChange(i + 1, null);
+                }
                 swapSelection(i, i + 1);
             }
         } else {
             for (int i = fromPosition; i > toPosition; i--) {
                 log.v("swapItems from=%s to=%s", i, (i - 1));
                 Collections.swap(list, i, i - 1);
+                if (list == mItems) {
+                    updateIndexesOnChange(i, null);
+                    updateIndexesOnChange(i - 1, null);
+                }
                 swapSelection(i, i - 1);
             }
         }
@@ -4956,23 +7008,294 @@ public class FlexibleAdapter<T extends IFlexible>
     }
 
     /**
-     * {@inheritDoc}
-     *
-     * @since 5.0.0-b1
+     * {@inheritDoc}
+     *
+     * @since 5.0.0-b1
+     */
+    @Override
+    @CallSuper
+    public void onItemSwiped(int position, int direction) {
+        // Delegate actions to the user
+        if (mItemSwipeListener != null) {
+            mItemSwipeListener.onItemSwipe(position, direction);
+        }
+    }
+
+    /*------------------------*/
+    /* OTHERS PRIVATE METHODS */
+    /*------------------------*/
+
+    /**
+     * Creates a copy of the provided items in the type of list currently configured to hold
+     * the items.
+     *
+     * @param items the items to copy, can be null
+     * @return a new modifiable list
+     * @see #setChunkedListEnabled(boolean)
+     * @since 5.1.0
+     */
+    private List<T> createItemList(@Nullable List<T> items) {
+        if (useChunkedList) {
+            return items == null ? new ChunkedList<T>() : new ChunkedList<>(items);
+        }
+        return items == null ? new ArrayList<T>() : new ArrayList<>(items);
+    }
+
+    /**
+     * Adopts a new list (already copied) as internal list, converting it only if the chunked
+     * list is configured.
+     *
+     * @since 5.1.0
+     */
+    private List<T> adoptItemList(List<T> items) {
+        return useChunkedList && !(items instanceof ChunkedList) ? createItemList(items) : items;
+    }
+
+    /**
+     * Keeps the optional indexes in sync after items have been inserted in the internal list.
+     *
+     * @param positionStart the position of the first inserted item
+     * @param itemCount     the number of items inserted
+     * @since 5.1.0
+     */
+    private void updateIndexesOnInsert(int positionStart, int itemCount) {
+        updateIndexesOnInsert(positionStart, itemCount, true);
+    }
+
+    /**
+     * @param dataSetChanged false if the items are results of the filter appended from the
+     *                       unchanged data set, the filter cache stays valid
+     * @see #updateIndexesOnInsert(int, int)
+     */
+    private void updateIndexesOnInsert(int positionStart, int itemCount, boolean dataSetChanged) {
+        invalidateSelectedKeysCount();
+        if (dataSetChanged) {
+            mDataSetVersion++;
+        }
+        invalidateSnapshot();
+        rearmAdoptedGuard(mItems);
+        if (mPositionIndex != null) {
+            mPositionIndex.onInserted(mItems, positionStart, itemCount);
+        }
+        if (mSectionIndex != null) {
+            mSectionIndex.onInserted(mItems, positionStart, itemCount);
+        }
+        if (mExpandableIndex != null) {
+            mExpandableIndex.onInserted(mItems, positionStart, itemCount);
+        }
+        if (mTypeCountIndex != null) {
+            mTypeCountIndex.onInserted(mItems, positionStart, itemCount);
+        }
+        if (mSearchIndex != null) {
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                if (mItems.get(i) instanceof ISearchable) {
+                    mSearchIndex.add((ISearchable) mItems.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the optional indexes in sync after items have been removed from the internal list.
+     *
+     * @param positionStart the position of the first removed item
+     * @param itemCount     the number of items removed
+     * @param removedItems  the items removed (a single item, or the subItems of a collapse)
+     * @since 5.1.0
+     */
+    private void updateIndexesOnRemove(int positionStart, int itemCount, @NonNull List<T> removedItems) {
+        updateIndexesOnRemove(positionStart, itemCount, removedItems, false);
+    }
+
+    /**
+     * @param moved true if the items are inserted back at another position, they keep their
+     *              stable ids
+     * @see #updateIndexesOnRemove(int, int, List)
+     */
+    private void updateIndexesOnRemove(int positionStart, int itemCount, @NonNull List<T> removedItems, boolean moved) {
+        invalidateSelectedKeysCount();
+        mDataSetVersion++;
+        invalidateSnapshot();
+        rearmAdoptedGuard(mItems);
+        if (mStableIds != null && !moved) {
+            for (T removedItem : removedItems) {
+                releaseStableId(removedItem);
+            }
+        }
+        if (mPositionIndex != null) {
+            mPositionIndex.onRemoved(positionStart, itemCount);
+        }
+        if (mSectionIndex != null) {
+            mSectionIndex.onRemoved(positionStart, itemCount);
+        }
+        if (mExpandableIndex != null) {
+            for (T removedItem : removedItems) {
+                if (isExpandable(removedItem)) {
+                    mExpandableIndex.onCollapsed((IExpandable) removedItem);
+                }
+            }
+        }
+        if (mTypeCountIndex != null) {
+            mTypeCountIndex.onRemoved(removedItems, itemCount);
+        }
+        if (mSearchIndex != null) {
+            for (T removedItem : removedItems) {
+                mSearchIndex.remove(removedItem);
+            }
+        }
+    }
+
+    /**
+     * Keeps the optional indexes in sync after an item has been replaced in the internal list.
+     *
+     * @param position the position of the item replaced
+     * @param oldItem  the previous item, null if it's still present in the list (swap)
+     * @since 5.1.0
+     */
+    private void updateIndexesOnChange(int position, @Nullable T oldItem) {
+        invalidateSelectedKeysCount();
+        mDataSetVersion++;
+        invalidateSnapshot();
+        rearmAdoptedGuard(mItems);
+        if (mStableIds != null && oldItem != null && oldItem != mItems.get(position)) {
+            if (mIdProvider instanceof InterningIdProvider && mStableIds.containsKey(oldItem)) {
+                // The updated copy is interned before the release, to keep the same id
+                getStableIdOf(mItems.get(position));
+            }
+            releaseStableId(oldItem);
+        }
+        if (mPositionIndex != null) {
+            mPositionIndex.onChanged(mItems, position, oldItem);
+        }
+        if (mSectionIndex != null) {
+            mSectionIndex.onChanged(mItems, position);
+        }
+        if (mExpandableIndex != null && oldItem != null) {
+            if (isExpandable(oldItem)) {
+                mExpandableIndex.onCollapsed((IExpandable) oldItem);
+            }
+            mExpandableIndex.onInserted(mItems, position, 1);
+        }
+        if (mTypeCountIndex != null) {
+            mTypeCountIndex.onChanged(mItems, position, oldItem);
+        }
+        if (mSearchIndex != null && oldItem != null) {
+            mSearchIndex.remove(oldItem);
+            if (mItems.get(position) instanceof ISearchable) {
+                mSearchIndex.add((ISearchable) mItems.get(position));
+            }
+        }
+    }
+
+    /**
+     * Keeps the optional indexes in sync after an expandable item has been expanded or
+     * collapsed, or its subItems have been changed.
+     *
+     * @param expandable the expandable item
+     * @param expanded   the current expanded status
+     * @since 5.1.0
+     */
+    private void updateIndexesOnExpand(IExpandable expandable, boolean expanded) {
+        if (mExpandableIndex != null) {
+            if (expanded) {
+                mExpandableIndex.onExpanded(expandable);
+            } else {
+                mExpandableIndex.onCollapsed(expandable);
+            }
+        }
+    }
+
+    /**
+     * Schedules the publication of a new snapshot at the end of the current message loop,
+     * once for all the modifications.
+     *
+     * @since 5.1.0
+     */
+    private void invalidateSnapshot() {
+        if (snapshotEnabled && !snapshotPending) {
+            snapshotPending = true;
+            mHandler.sendEmptyMessage(PUBLISH_SNAPSHOT);
+        }
+    }
+
+    private void publishSnapshot() {
+        snapshotPending = false;
+        if (snapshotEnabled) {
+            mSnapshot = new Snapshot<>(mItems.toArray(), ++mSnapshotVersion);
+        }
+    }
+
+    /**
+     * Throws if the adopted list has been modified since the last modification done by the
+     * Adapter: for fail-fast lists, the iterator checks the modification count in O(1).
+     *
+     * @see #adoptDataSet(List, boolean)
+     * @since 5.1.0
+     */
+    private void checkAdoptedItems() {
+        ListIterator<T> guard = mAdoptedGuard;
+        if (guard == null) {
+            return;
+        }
+        try {
+            guard.next();
+            guard.previous();
+        } catch (NoSuchElementException e) {
+            // Empty list, not modified
+        } catch (ConcurrentModificationException e) {
+            throw new IllegalStateException("The list adopted by adoptDataSet() has been modified outside the Adapter", e);
+        }
+    }
+
+    /**
+     * Accepts the modifications done by the Adapter to the list, if it's the adopted one.
+     */
+    private void rearmAdoptedGuard(List<T> items) {
+        if (mAdoptedGuard != null && items == mAdoptedItems) {
+            mAdoptedGuard = items.listIterator();
+        }
+    }
+
+    /**
+     * Discards the optional indexes when the internal list has been replaced or changed in bulk,
+     * they will be lazily rebuilt.
+     *
+     * @since 5.1.0
+     */
+    private void resetIndexes() {
+        invalidateSelectedKeysCount();
+        invalidateSnapshot();
+        rearmAdoptedGuard(mItems);
+        if (mStableIds != null) {
+            retainStableIds();
+        }
+        if (mPositionIndex != null) {
+            mPositionIndex.invalidate();
+        }
+        if (mSectionIndex != null) {
+            mSectionIndex.invalidate();
+        }
+        if (mExpandableIndex != null) {
+            mExpandableIndex.invalidate();
+        }
+        if (mTypeCountIndex != null) {
+            mTypeCountIndex.invalidate();
+        }
+        if (mSearchIndex != null) {
+            retainSearchIndex();
+        }
+    }
+
+    /**
+     * @return true if the viewType is present in the array before the index
      */
-    @Override
-    @CallSuper
-    public void onItemSwiped(int position, int direction) {
-        // Delegate actions to the user
-        if (mItemSwipeListener != null) {
-            mItemSwipeListener.onItemSwipe(position, direction);
+    private static boolean containsViewType(Integer[] viewTypes, int before, Integer viewType) {
+        for (int i = 0; i < before; i++) {
+            if (viewTypes[i].equals(viewType)) return true;
         }
+        return false;
     }
 
-    /*------------------------*/
-    /* OTHERS PRIVATE METHODS */
-    /*------------------------*/
-
     /**
      * Internal mapper to remember and add all view types for the items.
      *
@@ -4980,7 +7303,7 @@ public class FlexibleAdapter<T extends IFlexible>
      * @since 5.0.0-b1
      */
     private void mapViewTypeFrom(@NonNull T item) {
-        if (!mTypeInstances.containsKey(item.getItemViewType())) {
+        if (mTypeInstances.indexOfKey(item.getItemViewType()) < 0) {
             mTypeInstances.put(item.getItemViewType(), item);
             log.i("Mapped viewType %s from %s", item.getItemViewType(), getClassName(item));
         }
@@ -5150,30 +7473,9 @@ public class FlexibleAdapter<T extends IFlexible>
     }
 
     private void adjustSelected(int startPosition, int itemCount) {
-        List<Integer> selectedPositions = getSelectedPositions();
-        boolean adjusted = false;
-        String diff = "";
-        if (itemCount > 0) {
-            // Reverse sorting is necessary because using Set removes duplicates
-            // during adjusting, so we scan backward.
-            Collections.sort(selectedPositions, new Comparator<Integer>() {
-                @Override
-                public int compare(Integer lhs, Integer rhs) {
-                    return rhs - lhs;
-                }
-            });
-            diff = "+";
-        }
-        for (Integer position : selectedPositions) {
-            if (position >= startPosition) {
-//				log.v("Adjust Selected position %s to %s", position, Math.max(position + itemCount, startPosition));
-                removeSelection(position);
-                addAdjustedSelection(Math.max(position + itemCount, startPosition));
-                adjusted = true;
-            }
-        }
-        if (adjusted) {
-            log.v("AdjustedSelected(%s)=%s", (diff + itemCount), getSelectedPositions());
+        // All selected positions >= startPosition are shifted at once
+        if (shiftSelection(startPosition, itemCount)) {
+            log.v("AdjustedSelected(%s%s)=%s", (itemCount > 0 ? "+" : ""), itemCount, getSelectedPositions());
         }
     }
 
@@ -5258,7 +7560,8 @@ public class FlexibleAdapter<T extends IFlexible>
             this.mFilterEntity = savedInstanceState.getSerializable(EXTRA_FILTER);
             if (hasFilter()) {
                 mOriginalList = mItems;
-                mItems = new ArrayList<>();
+                mItems = createItemList(null);
+                resetIndexes();
             }
         }
     }
@@ -5267,6 +7570,132 @@ public class FlexibleAdapter<T extends IFlexible>
     /* INNER CLASSES */
     /*---------------*/
 
+    /**
+     * Immutable copy of the items of the Adapter at a given version, see
+     * {@link #getSnapshot()}. Read operations don't need synchronization, modifications
+     * throw {@link UnsupportedOperationException}.
+     *
+     * @param <T> the type of the items
+     * @since 5.1.0
+     */
+    public static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+
+        private final Object[] items;
+        private final long version;
+
+        Snapshot(Object[] items, long version) {
+            this.items = items;
+            this.version = version;
+        }
+
+        /**
+         * @return the version of this snapshot, increasing with each published modification
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) items[index];
+        }
+
+        @Override
+        public int size() {
+            return items.length;
+        }
+    }
+
+    /**
+     * Provider of the stable ids of the items, see {@link #setIdProvider(IdProvider)}.
+     *
+     * @param <T> the type of the items
+     * @since 5.1.0
+     */
+    public interface IdProvider<T> {
+        /**
+         * Called once per item instance, the id is cached by the Adapter.
+         *
+         * @param item the item
+         * @return the stable id of the item, unique among all the items of the Adapter
+         */
+        long getStableId(@NonNull T item);
+    }
+
+    /**
+     * Built-in {@link IdProvider} that interns the items: each distinct item (by
+     * {@code equals()}) receives a new sequential id, an updated copy of the same item receives
+     * the same id. Ids never collide.
+     * <p>Each id counts the instances it has been given to: the Adapter releases an instance
+     * when it leaves the list, and the id is forgotten when no equal instance is displayed
+     * anymore. The same provider can be shared between Adapters.</p>
+     * <b>Note:</b> To count the calls, extend this class instead of wrapping it in another
+     * {@link IdProvider}, otherwise the instances are never released.
+     *
+     * @since 5.1.0
+     */
+    public static class InterningIdProvider implements IdProvider<Object> {
+
+        private final Map<Object, InternedId> mIds = new HashMap<>();
+        private long mNextId = 1;
+
+        @Override
+        public synchronized long getStableId(@NonNull Object item) {
+            InternedId internedId = mIds.get(item);
+            if (internedId == null) {
+                internedId = new InternedId(mNextId++);
+                mIds.put(item, internedId);
+            }
+            internedId.instances++;
+            return internedId.id;
+        }
+
+        /**
+         * Releases an instance previously passed to {@link #getStableId(Object)}, called by
+         * the Adapter when the instance leaves the list.
+         *
+         * @param item the instance leaving the list
+         */
+        public synchronized void releaseStableId(@NonNull Object item) {
+            InternedId internedId = mIds.get(item);
+            if (internedId != null && --internedId.instances <= 0) {
+                mIds.remove(item);
+            }
+        }
+
+        /**
+         * @return the number of distinct items currently interned
+         */
+        public synchronized int size() {
+            return mIds.size();
+        }
+
+        private static class InternedId {
+            final long id;
+            int instances;
+
+            InternedId(long id) {
+                this.id = id;
+            }
+        }
+    }
+
+    /**
+     * Factory of the ViewHolders for a registered ViewType,
+     * see {@link #registerViewType(int, int, ViewHolderFactory)}.
+     *
+     * @since 5.1.0
+     */
+    public interface ViewHolderFactory {
+        /**
+         * @param view    the already inflated view
+         * @param adapter the Adapter instance extending {@link FlexibleAdapter}
+         * @return a new ViewHolder that holds a View of the registered view type
+         */
+        RecyclerView.ViewHolder createViewHolder(View view, FlexibleAdapter<IFlexible> adapter);
+    }
+
     /**
      * @since 03/01/2016
      */
@@ -5468,7 +7897,7 @@ public class FlexibleAdapter<T extends IFlexible>
     private class AdapterDataObserver extends RecyclerView.AdapterDataObserver {
 
         private void adjustPositions(int positionStart, int itemCount) {
-            if (adjustSelected) { // Don't, if remove range / restore
+            if (adjustSelected && !dispatchingBatch) { // Don't, if remove range / restore / batch
                 adjustSelected(positionStart, itemCount);
             }
             adjustSelected = true;
@@ -5567,21 +7996,60 @@ public class FlexibleAdapter<T extends IFlexible>
     }
 
     /**
-     * Class necessary to notify the changes when using AsyncTask.
+     * Class necessary to notify the changes computed in background.
      */
     private static class Notification {
 
         public static final int ADD = 1, CHANGE = 2, REMOVE = 3, MOVE = 4;
-        int fromPosition, position, operation;
+        int fromPosition, position, operation, itemCount;
 
-        public Notification(int position, int operation) {
-            this.position = position;
-            this.operation = operation;
+        public Notification(int fromPosition, int toPosition, int operation) {
+            set(fromPosition, toPosition, operation);
         }
 
-        public Notification(int fromPosition, int toPosition, int operation) {
-            this(toPosition, operation);
+        void set(int fromPosition, int toPosition, int operation) {
             this.fromPosition = fromPosition;
+            this.position = toPosition;
+            this.operation = operation;
+            this.itemCount = 1;
+        }
+
+        /**
+         * Extends this range with the next notification, if the result is the same.
+         *
+         * @return true if merged, false if the notification has to be added
+         */
+        boolean merge(int nextPosition, int nextOperation) {
+            if (nextOperation != operation) return false;
+            switch (operation) {
+                case ADD:
+                    // Insertion at the end or at the start of the inserted range
+                    if (nextPosition == position + itemCount || nextPosition == position) {
+                        itemCount++;
+                        return true;
+                    }
+                    return false;
+                case REMOVE:
+                    // Removal of the previous or of the next item
+                    if (nextPosition == position - 1 || nextPosition == position) {
+                        position = Math.min(position, nextPosition);
+                        itemCount++;
+                        return true;
+                    }
+                    return false;
+                case CHANGE:
+                    if (nextPosition == position - 1) {
+                        position--;
+                        itemCount++;
+                        return true;
+                    } else if (nextPosition == position + itemCount) {
+                        itemCount++;
+                        return true;
+                    }
+                    return nextPosition >= position && nextPosition < position + itemCount;
+                default:
+                    return false;
+            }
         }
 
         @Override
@@ -5590,66 +8058,323 @@ public class FlexibleAdapter<T extends IFlexible>
                     "operation=" + operation +
                     (operation == MOVE ? ", fromPosition=" + fromPosition : "") +
                     ", position=" + position +
+                    (itemCount > 1 ? ", itemCount=" + itemCount : "") +
                     '}';
         }
     }
 
-    @SuppressLint("StaticFieldLeak")
-    private class FilterAsyncTask extends AsyncTask<Void, Void, Void> {
+    /**
+     * Notifications computed by a diff, merging contiguous ranges of the same operation, with
+     * the maps of the keyed diff reused by the next update. The parallel diff uses one buffer
+     * for each batch of sections.
+     */
+    private class NotificationBuffer {
+
+        List<Notification> notifications;
+        /* Position of the diffed sublist in the list, added to the notified positions */
+        int offset, count;
+        LongIntHashMap newKeys, oldKeys;
+
+        void reset() {
+            notifications = new ArrayList<>();
+            offset = 0;
+            count = 0;
+        }
+
+        /**
+         * Adds a notification, merging it in the last one when they form a contiguous range of
+         * the same operation: a filter removing thousands of contiguous rows dispatches a
+         * single {@code notifyItemRangeRemoved}.
+         */
+        void add(int fromPosition, int position, int operation) {
+            count++;
+            if (operation != 0) {
+                fromPosition += offset;
+                position += offset;
+            }
+            int last = notifications.size() - 1;
+            if (last >= 0 && notifications.get(last).merge(position, operation)) {
+                return;
+            }
+            notifications.add(obtainNotification(fromPosition, position, operation));
+        }
+
+        /**
+         * Notifies the replacement of a region: the common part as changed, the difference as
+         * inserted or removed at the end of the region. Ranges are never merged.
+         */
+        void addRanges(int position, int oldCount, int newCount) {
+            int changed = Math.min(oldCount, newCount);
+            if (changed > 0) {
+                addRange(position, changed, Notification.CHANGE);
+            }
+            if (newCount > oldCount) {
+                addRange(position + changed, newCount - oldCount, Notification.ADD);
+            } else if (oldCount > newCount) {
+                addRange(position + changed, oldCount - newCount, Notification.REMOVE);
+            }
+        }
+
+        private void addRange(int position, int itemCount, int operation) {
+            count += itemCount;
+            Notification notification = obtainNotification(0, position + offset, operation);
+            notification.itemCount = itemCount;
+            notifications.add(notification);
+        }
+    }
+
+    /**
+     * Items matched by a filter, see {@link #setFilterCacheSize(int)}.
+     */
+    private static class FilterCacheEntry {
+
+        final Set<Object> matches;
+        final int version;
+
+        FilterCacheEntry(Set<Object> matches, int version) {
+            this.matches = matches;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Operation recorded by a {@link Batch}, with the operation codes of the notifications.
+     */
+    private static class BatchOperation {
+
+        final IFlexible item;
+        final int operation, position;
+
+        BatchOperation(IFlexible item, int operation, int position) {
+            this.item = item;
+            this.operation = operation;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Transaction of keyed modifications, created by {@link #beginBatch()}. The operations
+     * are recorded in order and applied at the {@link #commit()}, in the UI thread.
+     * <p>Items to update, remove and move are found with {@code equals()}: the provided
+     * instance can be a new instance with the same key of the current one.</p>
+     *
+     * @since 5.1.0
+     */
+    public final class Batch {
+
+        private final List<BatchOperation> operations = new ArrayList<>();
+        private boolean committed;
+
+        Batch() {
+        }
+
+        /**
+         * Inserts the item at the position, as computed by the previous operations.
+         *
+         * @param position the position of the new item, if negative or out of bounds, it is
+         *                 added after the main items
+         * @param item     the item to insert
+         * @return this batch, so the calls can be chained
+         */
+        public Batch insert(int position, @NonNull T item) {
+            return record(item, Notification.ADD, position);
+        }
+
+        /**
+         * Replaces the item equal to the provided one with the new instance, and rebinds it.
+         *
+         * @param item the item with the new content
+         * @return this batch, so the calls can be chained
+         */
+        public Batch update(@NonNull T item) {
+            return record(item, Notification.CHANGE, -1);
+        }
+
+        /**
+         * Removes the item equal to the provided one, together with its expanded sub items.
+         * The removal is permanent: the Undo is not available.
+         *
+         * @param item the item to remove
+         * @return this batch, so the calls can be chained
+         */
+        public Batch remove(@NonNull T item) {
+            return record(item, Notification.REMOVE, -1);
+        }
+
+        /**
+         * Moves the item equal to the provided one, together with its expanded sub items.
+         *
+         * @param item       the item to move
+         * @param toPosition the position of the item after the move
+         * @return this batch, so the calls can be chained
+         */
+        public Batch move(@NonNull T item, int toPosition) {
+            return record(item, Notification.MOVE, toPosition);
+        }
+
+        /**
+         * @return the number of operations recorded
+         */
+        public int size() {
+            return operations.size();
+        }
+
+        /**
+         * Applies all the operations and notifies the changes. Must be called in the UI thread.
+         *
+         * @throws IllegalStateException if the batch was already committed
+         */
+        public void commit() {
+            checkNotCommitted();
+            committed = true;
+            if (!operations.isEmpty()) {
+                applyBatch(operations);
+            }
+        }
+
+        private Batch record(T item, int operation, int position) {
+            checkNotCommitted();
+            if (item == null) {
+                throw new IllegalArgumentException("Batch item cannot be null");
+            }
+            operations.add(new BatchOperation(item, operation, position));
+            return this;
+        }
+
+        private void checkNotCommitted() {
+            if (committed) {
+                throw new IllegalStateException("Batch already committed, begin a new one");
+            }
+        }
+    }
+
+    /**
+     * Executes the tasks one at a time, in order of submission, on the given Executor.
+     */
+    private static class SerialExecutor implements Executor {
+
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull final Runnable runnable) {
+            tasks.offer(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        scheduleNext();
+                    }
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+
+    /**
+     * Background computation of updateDataSet and filterItems. A task is identified by its
+     * generation: when a newer task is requested, the generation of the Adapter changes, the
+     * running computation stops at the next check and its result is never dispatched.
+     */
+    private class FilterTask implements Runnable {
 
-        private final List<T> newItems;
+        private final List<T> newItems, source;
         private final int what;
+        private final int generation;
+        /* Results of the progressive filter not yet published */
+        private List<T> progressiveTail;
 
-        FilterAsyncTask(int what, @Nullable List<T> newItems) {
+        FilterTask(int what, @Nullable List<T> newItems, int generation) {
             this.what = what;
-            // Copy of the original list if not null
-            this.newItems = newItems == null ? new ArrayList<T>() : new ArrayList<>(newItems);
+            this.generation = generation;
+            this.source = newItems;
+            if (newItems != null && newItems == mTransferItems) {
+                // Ownership transferred, no copy
+                checkAdoptedItems();
+                this.newItems = newItems;
+                mTransferItems = null;
+            } else {
+                // Copy of the original list if not null
+                this.newItems = newItems == null ? new ArrayList<T>() : new ArrayList<>(newItems);
+            }
         }
 
-        @Override
-        protected void onPreExecute() {
+        boolean isCancelled() {
+            return generation != mGeneration;
+        }
+
+        /**
+         * Runs in the UI thread before the submission.
+         *
+         * @return false if the task cannot be executed
+         */
+        boolean onPreExecute() {
             if (endlessLoading) {
                 log.w("Cannot filter while endlessLoading");
-                this.cancel(true);
+                return false;
             }
             // Note: In case of some deleted items, we commit the deletion in the original list
             // and in the current list before starting or resetting the filter.
             if (isRestoreInTime()) {
                 log.d("Removing all deleted items before filtering/updating");
                 newItems.removeAll(getDeletedItems());
+                rearmAdoptedGuard(newItems);
                 if (mDeleteCompleteListener != null) {
                     mDeleteCompleteListener.onDeleteConfirmed(3); // Snackbar.Callback.DISMISS_EVENT_MANUAL = 3
                 }
             }
+            return true;
         }
 
         @Override
-        protected void onCancelled() {
-            log.i("FilterAsyncTask cancelled!");
-        }
-
-        @Override
-        protected Void doInBackground(Void... params) {
-            start = System.currentTimeMillis();
-            switch (what) {
-                case UPDATE:
-                    log.d("doInBackground - started UPDATE");
-                    prepareItemsForUpdate(newItems);
-                    animateDiff(newItems, Payload.CHANGE);
-                    log.d("doInBackground - ended UPDATE");
-                    break;
-                case FILTER:
-                    log.d("doInBackground - started FILTER");
-                    filterItemsAsync(newItems);
-                    log.d("doInBackground - ended FILTER");
-                    break;
+        public void run() {
+            if (isCancelled()) {
+                log.i("FilterTask cancelled before start! generation=%s", generation);
+            } else {
+                doInBackground(this);
             }
-            return null;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onPostExecute();
+                }
+            });
         }
 
-        @Override
-        protected void onPostExecute(Void result) {
-            if (diffResult != null || mNotifications != null) {
+        void onPostExecute() {
+            if (mInFlightTask == this) {
+                mInFlightTask = null;
+            }
+            if (newItems == mAdoptedItems) {
+                checkAdoptedItems();
+            }
+            // Stale result: a newer task will dispatch its own
+            if (isCancelled()) {
+                log.i("FilterTask cancelled! generation=%s", generation);
+                scheduleDispatchPending();
+                return;
+            }
+            if (progressiveTail != null) {
+                // Last batch of the progressive filter
+                appendFilterResults(progressiveTail);
+                progressiveTail = null;
+                onPostFilter();
+            } else if (diffResult != null || mNotifications != null) {
                 // Execute post data
                 switch (what) {
                     case UPDATE:
@@ -5663,8 +8388,37 @@ public class FlexibleAdapter<T extends IFlexible>
                         onPostFilter();
                         break;
                 }
+                measureTimeToFirstFrame();
+            }
+            lastDispatchTime = System.currentTimeMillis();
+            scheduleDispatchPending();
+        }
+    }
+
+    /**
+     * Computes the task in the background thread. The lock on the Adapter keeps the
+     * computations in sequence, the stale ones release it at the first check.
+     */
+    private synchronized void doInBackground(FilterTask task) {
+        mRunningTask = task;
+        try {
+            start = System.currentTimeMillis();
+            switch (task.what) {
+                case UPDATE:
+                    log.d("doInBackground - started UPDATE");
+                    prepareItemsForUpdate(task.newItems);
+                    rearmAdoptedGuard(task.newItems);
+                    animateDiff(task.newItems, Payload.CHANGE);
+                    log.d("doInBackground - ended UPDATE");
+                    break;
+                case FILTER:
+                    log.d("doInBackground - started FILTER");
+                    filterItemsAsync(task.newItems, task.source);
+                    log.d("doInBackground - ended FILTER");
+                    break;
             }
-            mFilterAsyncTask = null;
+        } finally {
+            mRunningTask = null;
         }
     }
 
@@ -5742,6 +8496,8 @@ public class FlexibleAdapter<T extends IFlexible>
      * <p>You can use and override this Callback, current values used by the Adapter:</p>
      * 1 = async call for updateDataSet.
      * <br>2 = async call for filterItems, optionally delayed.
+     * <br>3 = async call for the latest coalesced updateDataSet, optionally delayed.
+     * <br>4 = publication of the snapshot of the items.
      * <br>8 = hide the progress item from the list, optionally delayed.
      * <p><b>Note:</b> numbers 0-9 are reserved for the Adapter, use others.</p>
      *
@@ -5754,11 +8510,19 @@ public class FlexibleAdapter<T extends IFlexible>
             switch (message.what) {
                 case UPDATE: // updateDataSet OR
                 case FILTER: // filterItems
-                    if (mFilterAsyncTask != null) {
-                        mFilterAsyncTask.cancel(true);
+                    submitTask(message.what, (List<T>) message.obj);
+                    return true;
+                case DISPATCH_PENDING: // latest coalesced updateDataSet
+                    if (mInFlightTask == null && mPendingItems != null) {
+                        List<T> items = mPendingItems;
+                        mPendingItems = null;
+                        submitTask(mPendingWhat, items);
+                    }
+                    return true;
+                case PUBLISH_SNAPSHOT: // snapshot of the modifications
+                    if (snapshotPending) {
+                        publishSnapshot();
                     }
-                    mFilterAsyncTask = new FilterAsyncTask(message.what, (List<T>) message.obj);
-                    mFilterAsyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
                     return true;
                 case LOAD_MORE_COMPLETE: // hide progress item
                     hideProgressItem();
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Hash set of primitive {@code long} values with open addressing and linear probing: values
+ * are never boxed and the set doesn't allocate entries.
+ * <p>The value {@code 0} is the marker of the free slots, so it is kept aside in a flag.</p>
+ * <b>Note:</b> This class is not synchronized.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] mTable = new long[MIN_CAPACITY];
+    private int mSize = 0;
+    private boolean mHasZero = false;
+
+    int size() {
+        return mSize + (mHasZero ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) return mHasZero;
+        long[] table = mTable;
+        int mask = table.length - 1;
+        for (int slot = hash(value) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (table[slot] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the value was not present, false otherwise
+     */
+    boolean add(long value) {
+        if (value == 0) {
+            boolean added = !mHasZero;
+            mHasZero = true;
+            return added;
+        }
+        int mask = mTable.length - 1;
+        int slot = hash(value) & mask;
+        while (mTable[slot] != 0) {
+            if (mTable[slot] == value) return false;
+            slot = (slot + 1) & mask;
+        }
+        mTable[slot] = value;
+        // Load factor 0.5
+        if (++mSize * 2 > mTable.length) {
+            resize(mTable.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the value was present, false otherwise
+     */
+    boolean remove(long value) {
+        if (value == 0) {
+            boolean removed = mHasZero;
+            mHasZero = false;
+            return removed;
+        }
+        int mask = mTable.length - 1;
+        int slot = hash(value) & mask;
+        while (mTable[slot] != value) {
+            if (mTable[slot] == 0) return false;
+            slot = (slot + 1) & mask;
+        }
+        // Backward shift deletion: move back the following values of the same cluster
+        int free = slot;
+        for (int next = (free + 1) & mask; mTable[next] != 0; next = (next + 1) & mask) {
+            int home = hash(mTable[next]) & mask;
+            // Move the value if its home slot is not between the free slot and its slot
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                mTable[free] = mTable[next];
+                free = next;
+            }
+        }
+        mTable[free] = 0;
+        mSize--;
+        return true;
+    }
+
+    void clear() {
+        if (mTable.length > MIN_CAPACITY) {
+            mTable = new long[MIN_CAPACITY];
+        } else {
+            Arrays.fill(mTable, 0L);
+        }
+        mSize = 0;
+        mHasZero = false;
+    }
+
+    /**
+     * @return a new array with all the values, in no particular order
+     */
+    @NonNull
+    long[] toArray() {
+        long[] values = new long[size()];
+        int i = 0;
+        if (mHasZero) {
+            values[i++] = 0;
+        }
+        for (long value : mTable) {
+            if (value != 0) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    private static int hash(long value) {
+        // Mix the bits, ids and hashCodes are often sequential
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize(int capacity) {
+        long[] old = mTable;
+        mTable = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = hash(value) & mask;
+                while (mTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                mTable[slot] = value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import java.util.Arrays;
+
+/**
+ * Hash map of primitive {@code long} keys to non negative {@code int} values, with open
+ * addressing and linear probing, same layout of {@link LongHashSet}.
+ * <p>Used by the keyed diff to map the item keys to their positions: {@link #clear()} keeps
+ * the capacity, so the same instance is reused by the next update without allocations.</p>
+ * <b>Note:</b> This class is not synchronized.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class LongIntHashMap {
+
+    static final int NO_VALUE = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] mKeys = new long[MIN_CAPACITY];
+    private int[] mValues = new int[MIN_CAPACITY];
+    private int mSize = 0;
+    /* The key 0 is the marker of the free slots */
+    private int mZeroValue = NO_VALUE;
+
+    int size() {
+        return mSize + (mZeroValue != NO_VALUE ? 1 : 0);
+    }
+
+    /**
+     * @return the value of the key, {@link #NO_VALUE} if absent
+     */
+    int get(long key) {
+        if (key == 0) return mZeroValue;
+        long[] keys = mKeys;
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return mValues[slot];
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * @param value the value, must be &gt;= 0
+     * @return the previous value of the key, {@link #NO_VALUE} if absent
+     */
+    int put(long key, int value) {
+        if (key == 0) {
+            int previous = mZeroValue;
+            mZeroValue = value;
+            return previous;
+        }
+        int mask = mKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (mKeys[slot] != 0) {
+            if (mKeys[slot] == key) {
+                int previous = mValues[slot];
+                mValues[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        mKeys[slot] = key;
+        mValues[slot] = value;
+        // Load factor 0.5
+        if (++mSize * 2 > mKeys.length) {
+            resize(mKeys.length * 2);
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes all keys, keeping the capacity.
+     */
+    void clear() {
+        if (size() > 0) {
+            Arrays.fill(mKeys, 0L);
+        }
+        mSize = 0;
+        mZeroValue = NO_VALUE;
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    private static int hash(long key) {
+        // Mix the bits, ids and hashCodes are often sequential
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (mKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                mKeys[slot] = oldKeys[i];
+                mValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+}
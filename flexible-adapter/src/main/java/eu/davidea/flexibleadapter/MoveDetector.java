@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Computes the minimal sequence of moves that reorders a list, in O(n log n).
+ * <p>The elements of a longest increasing subsequence of the target positions keep their place,
+ * all the others are moved, one at the time, right after the element preceding them in the
+ * target order. The current position of each element is counted on a Fenwick tree over the
+ * <i>slots</i>: every element has its original slot, and a moved element takes a slot reserved
+ * after the last unmoved element preceding it.</p>
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class MoveDetector {
+
+    private MoveDetector() {
+    }
+
+    /**
+     * @param targets the target position of each element, by current position: must be a
+     *                permutation of {@code [0, targets.length)}
+     * @return the moves to apply in sequence, as pairs {@code [from, to]} where {@code to} is the
+     * position of the element after the move (as for {@code notifyItemMoved})
+     */
+    @NonNull
+    static int[] detectMoves(@NonNull int[] targets) {
+        int size = targets.length;
+        boolean[] stable = longestIncreasingSubsequence(targets);
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[targets[i]] = i;
+        }
+        // Anchor of a moved element: the last unmoved element preceding it in the target order
+        // (-1 when none); anchors are shifted by 1 as index of the arrays
+        int[] anchors = new int[size];
+        int[] chains = new int[size + 1];
+        int anchor = -1, moves = 0;
+        for (int target = 0; target < size; target++) {
+            int position = positions[target];
+            if (stable[position]) {
+                anchor = position;
+            } else {
+                anchors[target] = anchor + 1;
+                chains[anchor + 1]++;
+                moves++;
+            }
+        }
+        // Slots: the chain of the virtual anchor, then each element followed by its chain
+        int[] slots = new int[size];
+        int[] next = new int[size + 1];
+        int slot = chains[0];
+        for (int i = 0; i < size; i++) {
+            slots[i] = slot++;
+            next[i + 1] = slot;
+            slot += chains[i + 1];
+        }
+        int[] tree = new int[slot + 1];
+        for (int i = 0; i < size; i++) {
+            tree[slots[i] + 1] = 1;
+        }
+        for (int i = 1; i <= slot; i++) {
+            int parent = i + (i & -i);
+            if (parent <= slot) {
+                tree[parent] += tree[i];
+            }
+        }
+        // Moves in ascending target order: the predecessor is always in its final place
+        int[] result = new int[moves * 2];
+        int count = 0;
+        for (int target = 0; target < size; target++) {
+            int position = positions[target];
+            if (stable[position]) continue;
+            int from = countBefore(tree, slots[position]);
+            add(tree, slots[position], -1);
+            int to = countBefore(tree, next[anchors[target]]);
+            add(tree, next[anchors[target]]++, 1);
+            if (from != to) {
+                result[count++] = from;
+                result[count++] = to;
+            }
+        }
+        if (count < result.length) {
+            int[] trimmed = new int[count];
+            System.arraycopy(result, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return result;
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    /**
+     * Patience sorting with predecessors.
+     *
+     * @return the flags of the positions belonging to a longest increasing subsequence
+     */
+    private static boolean[] longestIncreasingSubsequence(int[] values) {
+        int size = values.length, length = 0;
+        // Position of the smallest tail of the subsequences of each length
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        for (int i = 0; i < size; i++) {
+            int low = 0, high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) length++;
+        }
+        boolean[] stable = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            stable[i] = true;
+        }
+        return stable;
+    }
+
+    /**
+     * @return the number of occupied slots before the slot
+     */
+    private static int countBefore(int[] tree, int slot) {
+        int sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static void add(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.davidea.flexibleadapter.utils.Logger;
+
+/**
+ * Item to position index used by {@link FlexibleAdapter#getGlobalPositionOf(eu.davidea.flexibleadapter.items.IFlexible)}
+ * when enabled with {@link FlexibleAdapter#setPositionIndexEnabled(boolean)}.
+ * <p>Each item remembers the position it had when it was indexed. Structural changes (insert
+ * and remove of a range) are not applied to every entry, they are instead recorded in a short
+ * log of pending shifts that is replayed at lookup time. When the log is full, the index is
+ * lazily rebuilt at the next lookup, so the rebuild cost is amortized over all the changes
+ * recorded since the previous rebuild.</p>
+ * <b>Note:</b> Items are keyed by {@code equals()} and {@code hashCode()}, as
+ * {@link List#indexOf(Object)} does: items are expected to be unique and their hashCode must
+ * not change while they are displayed.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class PositionIndex {
+
+    private static final int MIN_PENDING_SHIFTS = 16;
+
+    private final Map<Object, Entry> mEntries = new HashMap<>();
+    /* Pending shifts: positions >= start are moved by delta; if delta is negative,
+     * positions in [start, start - delta) have been removed */
+    private int[] mShiftStarts = new int[MIN_PENDING_SHIFTS], mShiftDeltas = new int[MIN_PENDING_SHIFTS];
+    private int mShiftCount = 0, mMaxShifts = MIN_PENDING_SHIFTS;
+    private boolean mValid = false, mStamped = false;
+
+    /**
+     * Position of the item at the moment of indexing, and the count of the pending shifts
+     * recorded at that moment (the shifts that do not apply to this position).
+     */
+    private static final class Entry {
+        int position, stamp;
+
+        Entry(int position, int stamp) {
+            this.position = position;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Retrieves the position of the item, same result of {@link List#indexOf(Object)}.
+     *
+     * @param items the list this index belongs to
+     * @param item  the item to find
+     * @return the position of the item, -1 if not found
+     */
+    int indexOf(@NonNull List<?> items, @NonNull Object item) {
+        if (!mValid) {
+            rebuild(items);
+        }
+        Entry entry = mEntries.get(item);
+        if (entry == null) {
+            return -1;
+        }
+        int position = resolve(entry);
+        if (position < 0) {
+            // Item has been removed meanwhile
+            mEntries.remove(item);
+            return -1;
+        }
+        if (position >= items.size() || !item.equals(items.get(position))) {
+            // Index is out of sync (i.e. hashCode changed or not unique items): start again
+            rebuild(items);
+            entry = mEntries.get(item);
+            return entry != null ? entry.position : -1;
+        }
+        return position;
+    }
+
+    /**
+     * Records that {@code count} items have been inserted at {@code start} in the list.
+     *
+     * @param items the list after the insertion
+     */
+    void onInserted(@NonNull List<?> items, int start, int count) {
+        if (!mValid || count <= 0) return;
+        if (!addShift(start, count)) return;
+        mStamped = true;
+        for (int i = start; i < start + count; i++) {
+            mEntries.put(items.get(i), new Entry(i, mShiftCount));
+        }
+    }
+
+    /**
+     * Records that {@code count} items have been removed starting from {@code start}.
+     */
+    void onRemoved(int start, int count) {
+        if (!mValid || count <= 0) return;
+        // Consecutive removals at same position (as removeRange does) are merged if no
+        // entry has been stamped meanwhile
+        if (!mStamped && mShiftCount > 0 && mShiftStarts[mShiftCount - 1] == start
+                && mShiftDeltas[mShiftCount - 1] < 0) {
+            mShiftDeltas[mShiftCount - 1] -= count;
+            return;
+        }
+        addShift(start, -count);
+    }
+
+    /**
+     * Records that the item at {@code position} has been replaced in place.
+     *
+     * @param items   the list after the change
+     * @param oldItem the item previously at that position, or null if it is now elsewhere
+     *                in the list (swap)
+     */
+    void onChanged(@NonNull List<?> items, int position, Object oldItem) {
+        if (!mValid) return;
+        Object item = items.get(position);
+        if (oldItem != null && !oldItem.equals(item)) {
+            mEntries.remove(oldItem);
+        }
+        mStamped = true;
+        mEntries.put(item, new Entry(position, mShiftCount));
+    }
+
+    /**
+     * Discards the whole index, it will be rebuilt at the next lookup.
+     */
+    void invalidate() {
+        mValid = false;
+        mEntries.clear();
+        mShiftCount = 0;
+    }
+
+    /**
+     * Debug check: compares every indexed position with the real position in the list.
+     *
+     * @param items the list this index belongs to
+     * @param log   the logger where to print the mismatches
+     * @return true if the index is consistent with the list, false otherwise
+     */
+    boolean verify(@NonNull List<?> items, @NonNull Logger log) {
+        if (!mValid) return true;
+        Map<Object, Integer> expectedPositions = new HashMap<>();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            expectedPositions.put(items.get(i), i);
+        }
+        boolean consistent = true;
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            Entry entry = mEntries.get(item);
+            int position = entry != null ? resolve(entry) : -1;
+            int expected = expectedPositions.get(item);
+            if (position != expected) {
+                log.e("PositionIndex mismatch for item=%s indexed=%s actual=%s", item, position, expected);
+                consistent = false;
+            }
+        }
+        return consistent;
+    }
+
+    private int resolve(Entry entry) {
+        int position = entry.position;
+        for (int i = entry.stamp; i < mShiftCount && position >= 0; i++) {
+            int start = mShiftStarts[i], delta = mShiftDeltas[i];
+            if (position >= start) {
+                if (delta < 0 && position < start - delta) {
+                    position = -1;
+                } else {
+                    position += delta;
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return false if the shift log is full and the index has been invalidated
+     */
+    private boolean addShift(int start, int delta) {
+        if (mShiftCount == mMaxShifts) {
+            invalidate();
+            return false;
+        }
+        mShiftStarts[mShiftCount] = start;
+        mShiftDeltas[mShiftCount] = delta;
+        mShiftCount++;
+        mStamped = false;
+        return true;
+    }
+
+    private void rebuild(List<?> items) {
+        mEntries.clear();
+        mShiftCount = 0;
+        mStamped = false;
+        int size = items.size();
+        for (int i = size - 1; i >= 0; i--) {
+            // Backward: the first occurrence wins, as indexOf() does
+            mEntries.put(items.get(i), new Entry(i, 0));
+        }
+        // Replay cost is balanced with the rebuild cost: ~sqrt(n) shifts before next rebuild
+        mMaxShifts = Math.max(MIN_PENDING_SHIFTS, (int) Math.sqrt(size));
+        if (mShiftStarts.length < mMaxShifts) {
+            mShiftStarts = new int[mMaxShifts];
+            mShiftDeltas = new int[mMaxShifts];
+        }
+        mValid = true;
+    }
+
+}
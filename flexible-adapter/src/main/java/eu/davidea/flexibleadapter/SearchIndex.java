@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.items.ISearchable;
+
+/**
+ * Trigram inverted index of the searchable text of the items, used by the filter when enabled
+ * with {@link FlexibleAdapter#setSearchIndexEnabled(boolean)}.
+ * <p>Each item receives an id and its lowercase text is split in trigrams, every trigram
+ * having the sorted list of the ids containing it. A query of at least 3 characters is
+ * answered by intersecting the lists of its trigrams, then checking the few candidates with
+ * {@code contains}; shorter queries check all the texts, without allocations.</p>
+ * Items are indexed by instance. The ids of the removed items are discarded and the lists
+ * are rebuilt when the removed ids outnumber the live ones: this happens as well when the
+ * list of the Adapter is replaced, see {@link #retainAll(Set)}.
+ * <p><b>Note:</b> Methods are synchronized: the index is updated in the UI thread and
+ * queried by the filter in background.</p>
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class SearchIndex {
+
+    private final Map<Object, Integer> mIds = new IdentityHashMap<>();
+    private final Map<Long, Postings> mPostings = new HashMap<>();
+    private Object[] mItems = new Object[16];
+    private String[] mTexts = new String[16];
+    private int mNextId = 0;
+
+    synchronized int size() {
+        return mIds.size();
+    }
+
+    /**
+     * Indexes the item if not yet indexed.
+     */
+    synchronized void add(@NonNull ISearchable item) {
+        if (mIds.containsKey(item)) return;
+        String text = item.getSearchableText();
+        if (text == null) return;
+        if (mNextId == mItems.length) {
+            mItems = Arrays.copyOf(mItems, mNextId * 2);
+            mTexts = Arrays.copyOf(mTexts, mNextId * 2);
+        }
+        int id = mNextId++;
+        mIds.put(item, id);
+        mItems[id] = item;
+        mTexts[id] = text.toLowerCase(Locale.getDefault());
+        indexTrigrams(id, mTexts[id]);
+    }
+
+    synchronized void remove(@NonNull Object item) {
+        Integer id = mIds.remove(item);
+        if (id == null) return;
+        mItems[id] = null;
+        mTexts[id] = null;
+        compactIfSparse();
+    }
+
+    /**
+     * Discards the items not present in the provided set, for instance the items of a list
+     * that has been replaced.
+     *
+     * @param liveItems the items to keep, by instance
+     */
+    synchronized void retainAll(@NonNull Set<Object> liveItems) {
+        Iterator<Map.Entry<Object, Integer>> iterator = mIds.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Integer> entry = iterator.next();
+            if (!liveItems.contains(entry.getKey())) {
+                int id = entry.getValue();
+                iterator.remove();
+                mItems[id] = null;
+                mTexts[id] = null;
+            }
+        }
+        if (mIds.isEmpty()) {
+            clear();
+        } else {
+            compactIfSparse();
+        }
+    }
+
+    synchronized void clear() {
+        mIds.clear();
+        mPostings.clear();
+        Arrays.fill(mItems, 0, mNextId, null);
+        Arrays.fill(mTexts, 0, mNextId, null);
+        mNextId = 0;
+    }
+
+    /**
+     * @param query the lowercase query
+     * @return the indexed items whose text contains the query, by instance
+     */
+    @NonNull
+    synchronized Set<Object> search(@NonNull String query) {
+        Set<Object> result = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        if (query.length() < 3) {
+            for (int id = 0; id < mNextId; id++) {
+                if (mTexts[id] != null && mTexts[id].contains(query)) {
+                    result.add(mItems[id]);
+                }
+            }
+            return result;
+        }
+        // Intersection starting from the shortest list
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            Postings postings = mPostings.get(trigram(query, i));
+            if (postings == null) return result;
+            lists.add(postings);
+        }
+        Postings shortest = lists.get(0);
+        for (Postings postings : lists) {
+            if (postings.size < shortest.size) shortest = postings;
+        }
+        int[] candidates = Arrays.copyOf(shortest.ids, shortest.size);
+        int count = shortest.size;
+        for (Postings postings : lists) {
+            if (postings != shortest) {
+                count = intersect(candidates, count, postings);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int id = candidates[i];
+            if (mTexts[id] != null && mTexts[id].contains(query)) {
+                result.add(mItems[id]);
+            }
+        }
+        return result;
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    /**
+     * Three chars packed in a long.
+     */
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private void indexTrigrams(int id, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Long key = trigram(text, i);
+            Postings postings = mPostings.get(key);
+            if (postings == null) {
+                postings = new Postings();
+                mPostings.put(key, postings);
+            }
+            // Ids are increasing: a repeated trigram of the same text is the last id
+            if (postings.size == 0 || postings.ids[postings.size - 1] != id) {
+                postings.add(id);
+            }
+        }
+    }
+
+    /**
+     * Keeps in the sorted candidates only the ids present in the sorted postings.
+     *
+     * @return the new number of candidates
+     */
+    private static int intersect(int[] candidates, int count, Postings postings) {
+        int kept = 0, j = 0;
+        for (int i = 0; i < count && j < postings.size; i++) {
+            int id = candidates[i];
+            while (j < postings.size && postings.ids[j] < id) j++;
+            if (j < postings.size && postings.ids[j] == id) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Compacts when the removed ids are the majority.
+     */
+    private void compactIfSparse() {
+        if (mNextId > 64 && mIds.size() < mNextId / 2) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        Object[] items = mItems;
+        String[] texts = mTexts;
+        int size = mNextId;
+        int live = mIds.size();
+        mIds.clear();
+        mPostings.clear();
+        mItems = new Object[Math.max(16, live * 2)];
+        mTexts = new String[mItems.length];
+        mNextId = 0;
+        for (int id = 0; id < size; id++) {
+            if (items[id] != null) {
+                if (mNextId == mItems.length) {
+                    mItems = Arrays.copyOf(mItems, mNextId * 2);
+                    mTexts = Arrays.copyOf(mTexts, mNextId * 2);
+                }
+                int newId = mNextId++;
+                mIds.put(items[id], newId);
+                mItems[newId] = items[id];
+                mTexts[newId] = texts[id];
+                indexTrigrams(newId, texts[id]);
+            }
+        }
+    }
+
+    /**
+     * Growing sorted list of ids.
+     */
+    private static final class Postings {
+
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+}
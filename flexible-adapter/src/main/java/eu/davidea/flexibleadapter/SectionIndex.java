@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.davidea.flexibleadapter.items.IHeader;
+
+/**
+ * Index of the sections currently displayed, used by the headers methods of
+ * {@link FlexibleAdapter} when enabled with {@link FlexibleAdapter#setSectionIndexEnabled(boolean)}.
+ * <p>The index holds the sorted start positions of all {@link IHeader} items in the list: a
+ * section starts at its header and ends before the next header, so the item count of every
+ * section comes from two consecutive starts. The section of any position is found with a
+ * binary search, the start of a known header with a map lookup.</p>
+ * Insertions and removals only shift the starts that follow the changed range (O(sections)),
+ * the whole list is scanned only the first time and after the list has been replaced.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class SectionIndex {
+
+    private int[] mStarts = new int[16];
+    private Object[] mHeaders = new Object[16];
+    private int mSize = 0;
+    /* Header -> slot in the arrays, rebuilt only when the set of headers changes */
+    private final Map<Object, Integer> mSlots = new HashMap<>();
+    private boolean mValid = false, mSlotsValid = false;
+
+    /**
+     * @param items    the list this index belongs to
+     * @param position any position in the list
+     * @return the position of the header of the section containing the position, -1 if the
+     * position is before the first header
+     */
+    int getHeaderPositionAt(@NonNull List<?> items, int position) {
+        ensureValid(items);
+        int slot = lowerBound(position + 1) - 1;
+        return slot >= 0 ? mStarts[slot] : -1;
+    }
+
+    /**
+     * @param items  the list this index belongs to
+     * @param header the header to find
+     * @return the position of the header in the list, -1 if not displayed
+     */
+    int getHeaderPosition(@NonNull List<?> items, @NonNull Object header) {
+        ensureValid(items);
+        if (!mSlotsValid) {
+            mSlots.clear();
+            for (int i = mSize - 1; i >= 0; i--) {
+                mSlots.put(mHeaders[i], i);
+            }
+            mSlotsValid = true;
+        }
+        Integer slot = mSlots.get(header);
+        return slot != null ? mStarts[slot] : -1;
+    }
+
+    /**
+     * @param items          the list this index belongs to
+     * @param headerPosition the position of a header
+     * @return the position where the section of the header ends (exclusive): the position of
+     * the next header or the size of the list
+     */
+    int getSectionEnd(@NonNull List<?> items, int headerPosition) {
+        ensureValid(items);
+        int slot = lowerBound(headerPosition + 1);
+        return slot < mSize ? mStarts[slot] : items.size();
+    }
+
+    /**
+     * Records that {@code count} items have been inserted at {@code start} in the list.
+     *
+     * @param items the list after the insertion
+     */
+    void onInserted(@NonNull List<?> items, int start, int count) {
+        if (!mValid || count <= 0) return;
+        int slot = lowerBound(start);
+        for (int i = slot; i < mSize; i++) {
+            mStarts[i] += count;
+        }
+        for (int i = start; i < start + count; i++) {
+            Object item = items.get(i);
+            if (item instanceof IHeader) {
+                insertSlot(slot++, i, item);
+            }
+        }
+    }
+
+    /**
+     * Records that {@code count} items have been removed starting from {@code start}.
+     */
+    void onRemoved(int start, int count) {
+        if (!mValid || count <= 0) return;
+        int from = lowerBound(start);
+        removeSlots(from, lowerBound(start + count));
+        for (int i = from; i < mSize; i++) {
+            mStarts[i] -= count;
+        }
+    }
+
+    /**
+     * Records that the item at {@code position} has been replaced in place.
+     *
+     * @param items the list after the change
+     */
+    void onChanged(@NonNull List<?> items, int position) {
+        if (!mValid) return;
+        Object item = items.get(position);
+        int slot = lowerBound(position);
+        boolean indexed = slot < mSize && mStarts[slot] == position;
+        if (item instanceof IHeader) {
+            if (!indexed) {
+                insertSlot(slot, position, item);
+            } else if (mHeaders[slot] != item) {
+                mHeaders[slot] = item;
+                mSlotsValid = false;
+            }
+        } else if (indexed) {
+            removeSlots(slot, slot + 1);
+        }
+    }
+
+    /**
+     * Discards the whole index, it will be rebuilt at the next query.
+     */
+    void invalidate() {
+        mValid = false;
+        mSlotsValid = false;
+        mSlots.clear();
+        for (int i = 0; i < mSize; i++) {
+            mHeaders[i] = null;
+        }
+        mSize = 0;
+    }
+
+    private void ensureValid(List<?> items) {
+        if (mValid) return;
+        invalidate();
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            if (item instanceof IHeader) {
+                insertSlot(mSize, i, item);
+            }
+        }
+        mValid = true;
+    }
+
+    private void insertSlot(int slot, int position, Object header) {
+        if (mSize == mStarts.length) {
+            int[] starts = new int[mSize * 2];
+            Object[] headers = new Object[mSize * 2];
+            System.arraycopy(mStarts, 0, starts, 0, mSize);
+            System.arraycopy(mHeaders, 0, headers, 0, mSize);
+            mStarts = starts;
+            mHeaders = headers;
+        }
+        System.arraycopy(mStarts, slot, mStarts, slot + 1, mSize - slot);
+        System.arraycopy(mHeaders, slot, mHeaders, slot + 1, mSize - slot);
+        mStarts[slot] = position;
+        mHeaders[slot] = header;
+        mSize++;
+        mSlotsValid = false;
+    }
+
+    private void removeSlots(int from, int to) {
+        int removed = to - from;
+        if (removed <= 0) return;
+        System.arraycopy(mStarts, to, mStarts, from, mSize - to);
+        System.arraycopy(mHeaders, to, mHeaders, from, mSize - to);
+        mSize -= removed;
+        for (int i = mSize; i < mSize + removed; i++) {
+            mHeaders[i] = null;
+        }
+        mSlotsValid = false;
+    }
+
+    /**
+     * @return the first slot having start >= position
+     */
+    private int lowerBound(int position) {
+        int low = 0, high = mSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mStarts[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
@@ -24,7 +24,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -59,12 +58,14 @@ import static eu.davidea.flexibleadapter.utils.LayoutUtils.getClassName;
  * <br>29/05/2016 Use of TreeSet instead of ArrayList
  * <br>04/04/2017 Use of FastScrollerDelegate
  * <br>05/06/2017 Improved Log system
+ * <br>17/10/2026 Use of a primitive bitset instead of TreeSet
  */
 @SuppressWarnings({"unused", "unchecked", "ConstantConditions", "WeakerAccess"})
 public abstract class SelectableAdapter extends RecyclerView.Adapter
         implements FastScroller.BubbleTextCreator, FastScroller.OnScrollStateChangeListener, FastScroller.AdapterInterface {
 
     private static final String TAG = SelectableAdapter.class.getSimpleName();
+    private static final String EXTRA_SELECTED_KEYS = TAG + "_selectedKeys";
     Logger log;
 
     /**
@@ -82,7 +83,11 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
         int IDLE = 0, SINGLE = 1, MULTI = 2;
     }
 
-    private final Set<Integer> mSelectedPositions;
+    private final SelectionSet mSelectedPositions;
+    /* Selection by stable key, null when the selection is stored by position */
+    private LongHashSet mSelectedKeys;
+    /* Count of the selected keys currently displayed, -1 to be recounted */
+    private int mSelectedKeysCount = -1;
     private final Set<FlexibleViewHolder> mBoundViewHolders;
     private int mMode;
     private IFlexibleLayoutManager mFlexibleLayoutManager;
@@ -120,7 +125,7 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
         }
         log = new Logger(Log.customTag);
         log.i("Running version %s", BuildConfig.VERSION_NAME);
-        mSelectedPositions = Collections.synchronizedSet(new TreeSet<Integer>());
+        mSelectedPositions = new SelectionSet();
         mBoundViewHolders = new HashSet<>();
         mMode = IDLE;
 
@@ -301,7 +306,11 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 1.0.0
      */
     public boolean isSelected(int position) {
-        return mSelectedPositions.contains(position);
+        if (mSelectedKeys != null) {
+            return position >= 0 && position < getItemCount()
+                    && mSelectedKeys.contains(getSelectionKey(position));
+        }
+        return mSelectedPositions.isSelected(position);
     }
 
     /**
@@ -338,14 +347,14 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
         if (mMode == SINGLE) {
             clearSelection();
         }
-        boolean contains = mSelectedPositions.contains(position);
+        boolean contains = isSelected(position);
         if (contains) {
             removeSelection(position);
         } else {
             addSelection(position);
         }
-        log.v("toggleSelection %s on position %s, current %s",
-                (contains ? "removed" : "added"), position, mSelectedPositions);
+        log.v("toggleSelection %s on position %s, current count %s",
+                (contains ? "removed" : "added"), position, getSelectedItemCount());
     }
 
     /**
@@ -357,18 +366,133 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 5.0.0-b7
      */
     public final boolean addSelection(int position) {
-        return isSelectable(position) && mSelectedPositions.add(position);
+        return isSelectable(position) && select(position);
     }
 
     /**
-     * This method is used only internally to force adjust selection.
+     * This method is used only internally to shift, all at once, the selected positions
+     * following an insertion or a removal of items.
      *
-     * @param position Position of the item to add the selection status for.
-     * @return true if the set is modified, false otherwise
-     * @since 5.0.0-rc1
+     * @param startPosition the first position to shift
+     * @param itemCount     the positive or negative shift
+     * @return true if at least one selected position has been shifted, false otherwise
+     * @since 5.1.0
+     */
+    final boolean shiftSelection(int startPosition, int itemCount) {
+        // Keys follow the items, nothing to shift
+        return mSelectedKeys == null && mSelectedPositions.shift(startPosition, itemCount);
+    }
+
+    /**
+     * This method is used only internally to switch the selection storage between positions
+     * and stable keys. The current selection is converted.
+     *
+     * @param keyed true to store the selection by key, false to store it by position
+     * @see #getSelectionKey(int)
+     * @since 5.1.0
+     */
+    final void setSelectionKeyed(boolean keyed) {
+        if (keyed == (mSelectedKeys != null)) return;
+        if (keyed) {
+            LongHashSet selectedKeys = new LongHashSet();
+            for (int position = mSelectedPositions.nextSelected(0); position >= 0;
+                 position = mSelectedPositions.nextSelected(position + 1)) {
+                long key = position < getItemCount() ? getSelectionKey(position) : RecyclerView.NO_ID;
+                if (key != RecyclerView.NO_ID) {
+                    selectedKeys.add(key);
+                }
+            }
+            mSelectedPositions.clear();
+            mSelectedKeys = selectedKeys;
+            mSelectedKeysCount = -1;
+        } else {
+            for (int position = nextSelected(0); position >= 0; position = nextSelected(position + 1)) {
+                mSelectedPositions.select(position);
+            }
+            mSelectedKeys = null;
+        }
+    }
+
+    /**
+     * @return true if the selection is stored by stable key, false if by position
+     * @since 5.1.0
+     */
+    final boolean isSelectionKeyed() {
+        return mSelectedKeys != null;
+    }
+
+    /**
+     * Provides the stable key of the item at the given position, used when the selection is
+     * stored by key. Overridden by {@link FlexibleAdapter} to resolve the key from the item.
+     *
+     * @param position the position of the item, always in the range of the items
+     * @return the stable key of the item, {@link RecyclerView#NO_ID} if the item has no
+     * stable key and cannot be selected by key
+     * @since 5.1.0
+     */
+    long getSelectionKey(int position) {
+        return position;
+    }
+
+    /**
+     * This method is used only internally to signal that the items have changed in structure:
+     * the count of the selected keys currently displayed will be recounted when needed.
+     *
+     * @since 5.1.0
+     */
+    final void invalidateSelectedKeysCount() {
+        mSelectedKeysCount = -1;
+    }
+
+    private boolean select(int position) {
+        if (mSelectedKeys == null) {
+            return mSelectedPositions.select(position);
+        }
+        if (position < 0 || position >= getItemCount()) {
+            return false;
+        }
+        long key = getSelectionKey(position);
+        if (key == RecyclerView.NO_ID) {
+            log.w("Cannot select by key the item at position %s: it has no stable key", position);
+            return false;
+        }
+        if (!mSelectedKeys.add(key)) {
+            return false;
+        }
+        if (mSelectedKeysCount >= 0) mSelectedKeysCount++;
+        return true;
+    }
+
+    private boolean deselect(int position) {
+        if (mSelectedKeys == null) {
+            return mSelectedPositions.deselect(position);
+        }
+        if (position < 0 || position >= getItemCount() || !mSelectedKeys.remove(getSelectionKey(position))) {
+            return false;
+        }
+        if (mSelectedKeysCount > 0) mSelectedKeysCount--;
+        return true;
+    }
+
+    /**
+     * When the selection is stored by key, the items are scanned from the given position:
+     * enumerating the whole selection is O(n) in the number of items, not of the selected
+     * items.
+     *
+     * @return the first selected position &gt;= from, -1 if none
      */
-    final boolean addAdjustedSelection(int position) {
-        return mSelectedPositions.add(position);
+    private int nextSelected(int from) {
+        if (mSelectedKeys == null) {
+            return mSelectedPositions.nextSelected(from);
+        }
+        if (!mSelectedKeys.isEmpty()) {
+            for (int position = Math.max(from, 0); position < getItemCount(); position++) {
+                if (mSelectedKeys.contains(getSelectionKey(position))) {
+                    return position;
+                }
+            }
+        }
+        return -1;
     }
 
     /**
@@ -379,7 +503,7 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 5.0.0-b7
      */
     public final boolean removeSelection(int position) {
-        return mSelectedPositions.remove(position);
+        return deselect(position);
     }
 
     /**
@@ -390,6 +514,10 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @param toPosition   second position
      */
     protected void swapSelection(int fromPosition, int toPosition) {
+        if (mSelectedKeys != null) {
+            // Keys follow the items, nothing to swap
+            return;
+        }
         if (isSelected(fromPosition) && !isSelected(toPosition)) {
             removeSelection(fromPosition);
             addSelection(toPosition);
@@ -401,19 +529,30 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
 
     /**
      * Sets the selection status for all items which the ViewTypes are included in the specified array.
+     * <p>When no ViewType is provided and all items are selectable, the whole range is selected
+     * at once, without setting the positions one by one: the cost is the single pass of
+     * {@link #areAllSelectable()}, which stops at the first item not selectable.</p>
      *
      * @param viewTypes The ViewTypes for which we want the selection, pass nothing to select all
      * @since 1.0.0
+     * <br>5.1.0 Selection of the whole range at once
      */
     public void selectAll(Integer... viewTypes) {
         mSelectAll = true;
         List<Integer> viewTypesToSelect = Arrays.asList(viewTypes);
         log.v("selectAll ViewTypes to include %s", viewTypesToSelect);
+        if (mSelectedKeys == null && viewTypesToSelect.isEmpty() && areAllSelectable()) {
+            // Selection of the whole range at once
+            mSelectedPositions.selectAll(getItemCount());
+            log.d("selectAll notifyItemRangeChanged from positionStart=%s itemCount=%s", 0, getItemCount());
+            notifySelectionChanged(0, getItemCount());
+            return;
+        }
         int positionStart = 0, itemCount = 0;
         for (int i = 0; i < getItemCount(); i++) {
             if (isSelectable(i) &&
                     (viewTypesToSelect.isEmpty() || viewTypesToSelect.contains(getItemViewType(i)))) {
-                mSelectedPositions.add(i);
+                select(i);
                 itemCount++;
             } else {
                 // Optimization for ItemRangeChanged
@@ -428,11 +567,28 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
         notifySelectionChanged(positionStart, getItemCount());
     }
 
+    /**
+     * Checks if all items can be selected, to select the whole range at once in
+     * {@link #selectAll(Integer...)}.
+     * <p>The default implementation checks {@link #isSelectable(int)} for each position until
+     * the first item not selectable. Override to return {@code true} in constant time, when
+     * all items are known to be selectable.</p>
+     *
+     * @return true if all items are selectable, false otherwise
+     * @since 5.1.0
+     */
+    protected boolean areAllSelectable() {
+        for (int i = 0; i < getItemCount(); i++) {
+            if (!isSelectable(i)) return false;
+        }
+        return true;
+    }
+
     /**
      * Clears the selection status for all items one by one and it doesn't stop animations in the items.
      * <p>
      * <b>Note 1:</b> Items are not rebound, so an eventual animation is not stopped!<br>
-     * <b>Note 2:</b> This method use {@code java.util.Iterator} on synchronized collection to
+     * <b>Note 2:</b> This method iterates the selection while holding its lock, to
      * avoid {@code java.util.ConcurrentModificationException}.</p>
      *
      * @since 1.0.0
@@ -441,12 +597,10 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
         // #373 - ConcurrentModificationException with Undo after multiple rapid swipe removals
         synchronized (mSelectedPositions) {
             log.d("clearSelection %s", mSelectedPositions);
-            Iterator<Integer> iterator = mSelectedPositions.iterator();
             int positionStart = 0, itemCount = 0;
             // The notification is done only on items that are currently selected.
-            while (iterator.hasNext()) {
-                int position = iterator.next();
-                iterator.remove();
+            for (int position = nextSelected(0); position >= 0; position = nextSelected(position + 1)) {
+                deselect(position);
                 // Optimization for ItemRangeChanged
                 if (positionStart + itemCount == position) {
                     itemCount++;
@@ -457,6 +611,10 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
                     itemCount = 1;
                 }
             }
+            if (mSelectedKeys != null) {
+                // Also the keys of the items not currently displayed
+                mSelectedKeys.clear();
+            }
             // Notify remaining items in range
             notifySelectionChanged(positionStart, itemCount);
         }
@@ -530,6 +688,16 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 1.0.0
      */
     public int getSelectedItemCount() {
+        if (mSelectedKeys != null) {
+            if (mSelectedKeysCount < 0) {
+                int count = 0;
+                for (int position = nextSelected(0); position >= 0; position = nextSelected(position + 1)) {
+                    count++;
+                }
+                mSelectedKeysCount = count;
+            }
+            return mSelectedKeysCount;
+        }
         return mSelectedPositions.size();
     }
 
@@ -541,16 +709,23 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 5.0.0-b2
      */
     public List<Integer> getSelectedPositions() {
-        return new ArrayList<>(mSelectedPositions);
+        List<Integer> selectedPositions = new ArrayList<>(getSelectedItemCount());
+        for (int position = nextSelected(0); position >= 0; position = nextSelected(position + 1)) {
+            selectedPositions.add(position);
+        }
+        return selectedPositions;
     }
 
     /**
      * Retrieves the set of selected items.
-     * <p>The set is sorted.</p>
+     * <p>The set is sorted. When the selection is stored by key, the set is a copy.</p>
      *
      * @return Set of selected items ids
      */
     public Set<Integer> getSelectedPositionsAsSet() {
+        if (mSelectedKeys != null) {
+            return new TreeSet<>(getSelectedPositions());
+        }
         return mSelectedPositions;
     }
 
@@ -565,7 +740,10 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      * @since 1.0.0
      */
     public void onSaveInstanceState(Bundle outState) {
-        outState.putIntegerArrayList(TAG, new ArrayList<>(mSelectedPositions));
+        outState.putIntegerArrayList(TAG, (ArrayList<Integer>) getSelectedPositions());
+        if (mSelectedKeys != null) {
+            outState.putLongArray(EXTRA_SELECTED_KEYS, mSelectedKeys.toArray());
+        }
         if (getSelectedItemCount() > 0) {
             log.d("Saving selection %s", mSelectedPositions);
         }
@@ -579,9 +757,17 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
      */
     public void onRestoreInstanceState(Bundle savedInstanceState) {
         // Fix for #651 - Check nullable: it happens that the list is null in some unknown cases
-        List selectedItems = savedInstanceState.getIntegerArrayList(TAG);
-        if (selectedItems != null) {
-            mSelectedPositions.addAll(selectedItems);
+        List<Integer> selectedItems = savedInstanceState.getIntegerArrayList(TAG);
+        long[] selectedKeys = savedInstanceState.getLongArray(EXTRA_SELECTED_KEYS);
+        if (mSelectedKeys != null && selectedKeys != null) {
+            for (long key : selectedKeys) {
+                mSelectedKeys.add(key);
+            }
+            mSelectedKeysCount = -1;
+        } else if (selectedItems != null) {
+            for (Integer position : selectedItems) {
+                select(position);
+            }
             if (getSelectedItemCount() > 0) {
                 log.d("Restore selection %s", mSelectedPositions);
             }
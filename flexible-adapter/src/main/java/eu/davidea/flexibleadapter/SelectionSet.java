@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of the selected positions used by {@link SelectableAdapter}, backed by a bitset of
+ * primitive {@code long} words.
+ * <ul>
+ * <li>{@link #isSelected(int)} is a bit test, without boxing and without lock;</li>
+ * <li>{@link #selectAll(int)} and {@link #clear()} are O(1): select all turns the set in
+ * <i>inverted</i> mode, where the bits mark the positions <u>not</u> selected;</li>
+ * <li>{@link #nextSelected(int)} iterates the selection in ascending order without allocations.</li>
+ * </ul>
+ * As {@code Set<Integer>}, the iteration order is ascending. Modifications are synchronized on
+ * this object as it was for the previous synchronized {@code TreeSet}.
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class SelectionSet extends AbstractSet<Integer> {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] mWords = EMPTY;
+    private int mCount = 0;
+    /* When inverted, the selected positions are [0, mLimit) except the bits set */
+    private boolean mInverted = false;
+    private int mLimit = 0;
+
+    /**
+     * @param position the position to check
+     * @return true if the position is selected, false otherwise
+     */
+    boolean isSelected(int position) {
+        if (position < 0) return false;
+        if (mInverted) {
+            return position < mLimit && !bit(position);
+        }
+        return bit(position);
+    }
+
+    /**
+     * @return true if the position was not selected, false otherwise
+     */
+    synchronized boolean select(int position) {
+        if (position < 0 || isSelected(position)) return false;
+        if (mInverted) {
+            if (position < mLimit) {
+                clearBit(position);
+                mCount++;
+                return true;
+            }
+            materialize();
+        }
+        setBit(position);
+        mCount++;
+        return true;
+    }
+
+    /**
+     * @return true if the position was selected, false otherwise
+     */
+    synchronized boolean deselect(int position) {
+        if (!isSelected(position)) return false;
+        if (mInverted) {
+            setBit(position);
+        } else {
+            clearBit(position);
+        }
+        if (--mCount == 0) {
+            clear();
+        }
+        return true;
+    }
+
+    /**
+     * Selects all positions from 0 to {@code count - 1} in constant time.
+     *
+     * @param count the number of positions to select
+     */
+    synchronized void selectAll(int count) {
+        mWords = EMPTY;
+        mInverted = count > 0;
+        mLimit = Math.max(count, 0);
+        mCount = mLimit;
+    }
+
+    /**
+     * @param from the position where to start the search (inclusive)
+     * @return the first selected position &gt;= {@code from}, -1 if none
+     */
+    int nextSelected(int from) {
+        if (from < 0) from = 0;
+        if (mInverted) {
+            int position = nextBit(from, false);
+            return position < mLimit ? position : -1;
+        }
+        return nextBit(from, true);
+    }
+
+    /**
+     * Shifts all selected positions &gt;= {@code start} by {@code delta} in O(words), as the
+     * old loop of remove/add did one position at the time: each position {@code p >= start}
+     * becomes {@code max(p + delta, start)}, so with a negative delta the positions falling
+     * before {@code start} collapse into {@code start}.
+     *
+     * @return true if at least one selected position has been shifted, false otherwise
+     */
+    synchronized boolean shift(int start, int delta) {
+        if (start < 0) start = 0;
+        if (delta == 0 || nextSelected(start) < 0) return false;
+        if (mInverted) {
+            materialize();
+        }
+        long[] words = mWords;
+        int last = (words.length << 6) - 1;
+        while (!bit(last)) last--;
+        // Head is kept as it is, then the tail is copied at the new offset
+        int from = delta > 0 ? start : start - delta + 1;
+        long[] shifted = new long[Math.max(wordIndex(last + Math.max(delta, 0)) + 1, 1)];
+        System.arraycopy(words, 0, shifted, 0, Math.min(wordIndex(start) + 1, words.length));
+        shifted[wordIndex(start)] &= (1L << start) - 1;
+        for (int i = wordIndex(from); i < words.length; i++) {
+            long word = i == wordIndex(from) ? words[i] & (-1L << from) : words[i];
+            if (word == 0) continue;
+            int base = (i << 6) + delta, index = base >> 6, offset = base & 63;
+            // Bits going before 0 are always masked out: they come from positions < from
+            if (index >= 0) {
+                shifted[index] |= word << offset;
+            }
+            if (offset != 0 && index + 1 < shifted.length) {
+                shifted[index + 1] |= word >>> (64 - offset);
+            }
+        }
+        if (delta < 0) {
+            int collapsed = nextBit(start, true);
+            if (collapsed >= 0 && collapsed < from) {
+                shifted[wordIndex(start)] |= 1L << start;
+            }
+        }
+        int count = 0;
+        for (long word : shifted) {
+            count += Long.bitCount(word);
+        }
+        mWords = shifted;
+        mCount = count;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return mCount;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && isSelected((Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer position) {
+        return select(position);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && deselect((Integer) o);
+    }
+
+    @Override
+    public synchronized void clear() {
+        mWords = EMPTY;
+        mInverted = false;
+        mLimit = 0;
+        mCount = 0;
+    }
+
+    @NonNull
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = nextSelected(0), last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) throw new NoSuchElementException();
+                last = next;
+                next = nextSelected(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) throw new IllegalStateException();
+                deselect(last);
+                last = -1;
+            }
+        };
+    }
+
+    /*-----------------*/
+    /* PRIVATE METHODS */
+    /*-----------------*/
+
+    /**
+     * Converts the inverted mode in the normal mode.
+     */
+    private void materialize() {
+        long[] words = new long[Math.max(wordIndex(mLimit - 1) + 1, mWords.length)];
+        for (int i = 0; i < words.length; i++) {
+            long bits = i < mWords.length ? mWords[i] : 0L;
+            int start = i << 6;
+            long range = start + 64 <= mLimit ? -1L : (start < mLimit ? (1L << (mLimit - start)) - 1 : 0L);
+            words[i] = ~bits & range;
+        }
+        mWords = words;
+        mInverted = false;
+        mLimit = 0;
+    }
+
+    private static int wordIndex(int position) {
+        return position >> 6;
+    }
+
+    private boolean bit(int position) {
+        int index = wordIndex(position);
+        long[] words = mWords;
+        return index < words.length && (words[index] & (1L << position)) != 0;
+    }
+
+    private void setBit(int position) {
+        int index = wordIndex(position);
+        if (index >= mWords.length) {
+            long[] words = new long[Math.max(index + 1, mWords.length * 2)];
+            System.arraycopy(mWords, 0, words, 0, mWords.length);
+            mWords = words;
+        }
+        mWords[index] |= 1L << position;
+    }
+
+    private void clearBit(int position) {
+        int index = wordIndex(position);
+        if (index < mWords.length) {
+            mWords[index] &= ~(1L << position);
+        }
+    }
+
+    /**
+     * @return the first position &gt;= from having the bit equal to {@code value}, -1 if none
+     * (searching for a clear bit never fails)
+     */
+    private int nextBit(int from, boolean value) {
+        long[] words = mWords;
+        int index = wordIndex(from);
+        if (index >= words.length) {
+            return value ? -1 : from;
+        }
+        long word = (value ? words[index] : ~words[index]) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return value ? -1 : index << 6;
+            }
+            word = value ? words[index] : ~words[index];
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import android.util.SparseIntArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Number of items for each ViewType, used by {@link FlexibleAdapter#getItemCountOfTypes(Integer...)}
+ * and by the bulk removals by ViewType when enabled with
+ * {@link FlexibleAdapter#setTypeCountIndexEnabled(boolean)}.
+ * <p>Counts are updated with the items entering and leaving the list, so a count costs a
+ * lookup in a {@link SparseIntArray}. When the list is replaced, or the items removed are not
+ * known, the counts are discarded and rebuilt at the next request.</p>
+ *
+ * @author Davide Steduto
+ * @since 5.1.0
+ */
+final class TypeCountIndex {
+
+    private final SparseIntArray mCounts = new SparseIntArray();
+    private boolean mValid = false;
+
+    /**
+     * @param items    the list this index belongs to
+     * @param viewType the ViewType to count
+     * @return the number of items of the ViewType
+     */
+    int getCount(@NonNull List<? extends IFlexible> items, int viewType) {
+        if (!mValid) {
+            rebuild(items);
+        }
+        return mCounts.get(viewType);
+    }
+
+    /**
+     * @param items the list after the insertion
+     */
+    void onInserted(@NonNull List<? extends IFlexible> items, int start, int count) {
+        if (!mValid) return;
+        for (int i = start; i < start + count; i++) {
+            add(items.get(i).getItemViewType(), 1);
+        }
+    }
+
+    /**
+     * @param removedItems the items removed, null if not known
+     * @param count        the number of items removed
+     */
+    void onRemoved(@Nullable List<? extends IFlexible> removedItems, int count) {
+        if (!mValid) return;
+        if (removedItems == null || removedItems.size() != count) {
+            invalidate();
+            return;
+        }
+        for (IFlexible item : removedItems) {
+            add(item.getItemViewType(), -1);
+        }
+    }
+
+    /**
+     * @param items   the list after the change
+     * @param oldItem the item replaced, null if it's still present in the list (swap)
+     */
+    void onChanged(@NonNull List<? extends IFlexible> items, int position, @Nullable IFlexible oldItem) {
+        if (!mValid || oldItem == null) return;
+        add(oldItem.getItemViewType(), -1);
+        add(items.get(position).getItemViewType(), 1);
+    }
+
+    /**
+     * Discards the counts, they will be rebuilt at the next request.
+     */
+    void invalidate() {
+        mValid = false;
+        mCounts.clear();
+    }
+
+    private void add(int viewType, int delta) {
+        mCounts.put(viewType, mCounts.get(viewType) + delta);
+    }
+
+    private void rebuild(List<? extends IFlexible> items) {
+        mCounts.clear();
+        for (IFlexible item : items) {
+            add(item.getItemViewType(), 1);
+        }
+        mValid = true;
+    }
+
+}
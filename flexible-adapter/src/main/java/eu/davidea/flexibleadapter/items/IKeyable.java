@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+
+/**
+ * Interface to provide a stable key of the item, that doesn't change when the item is moved,
+ * filtered out or replaced with an updated copy of the same model object.
+ * <p>The key is used when the selection is stored by key, see
+ * {@link FlexibleAdapter#setSelectionByKeyEnabled(boolean)}.</p>
+ *
+ * @author Davide Steduto
+ * @see IFlexible
+ * @see IHolder
+ * @since 5.1.0
+ */
+public interface IKeyable {
+
+    /**
+     * Returns the stable key of this item. Two items representing the same entity must return
+     * the same key, different entities should return different keys: for example the database
+     * id of the model object.
+     *
+     * @return the stable key of this item
+     */
+    long getItemKey();
+
+}
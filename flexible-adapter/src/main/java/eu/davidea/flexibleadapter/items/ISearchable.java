@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import androidx.annotation.Nullable;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+
+/**
+ * Interface to provide the text searched by the filter through the search index, enabled with
+ * {@link FlexibleAdapter#setSearchIndexEnabled(boolean)}.
+ * <p>With the index, a {@code String} filter collects the item when its text contains the
+ * filter, without calling {@link IFilterable#filter(java.io.Serializable)}.</p>
+ *
+ * @author Davide Steduto
+ * @see IFilterable
+ * @since 5.1.0
+ */
+public interface ISearchable {
+
+    /**
+     * Returns the text to search, for example the title and the subtitle of the item. The
+     * text is read and lowercased once per item instance: when the content changes, the item
+     * must be replaced with a new instance.
+     *
+     * @return the searchable text, null if the item cannot be found
+     */
+    @Nullable
+    String getSearchableText();
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2018 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+
+/**
+ * Interface to provide the version of the content of the item, usually together with
+ * {@link IKeyable}.
+ * <p>When the keyed diff is enabled, see {@link FlexibleAdapter#setKeyedDiffEnabled(boolean)},
+ * an item with the same key of the new item is rebound only if the versions differ, instead
+ * of calling {@link IFlexible#shouldNotifyChange(IFlexible)}.</p>
+ *
+ * @author Davide Steduto
+ * @see IKeyable
+ * @since 5.1.0
+ */
+public interface IVersionable {
+
+    /**
+     * Returns the version of the content of this item: it must change every time the
+     * displayed content changes, for example a modification counter or a timestamp of the
+     * model object.
+     *
+     * @return the version of the content
+     */
+    long getContentVersion();
+
+}